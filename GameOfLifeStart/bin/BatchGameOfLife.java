@@ -0,0 +1,199 @@
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Steps many independent societies of the same size at once. Societies are packed
+ * 64 to a long, one bit lane per society, so a single long holds the same cell of
+ * 64 universes. Neighbor counts are summed with bitwise adders and the rule is
+ * applied with bitwise logic, updating all 64 lanes in a handful of operations.
+ * Groups of 64 societies are stepped in parallel on the common fork/join pool.
+ *
+ * Any LifeRule is supported, with DEAD or TORUS boundaries.
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public class BatchGameOfLife {
+
+	private final int rows;
+	private final int cols;
+	private final int universes;
+	private final LifeRule rule;
+	private final BoundaryMode boundary;
+	private final long[][] groups; // groups[g][row * cols + col], lane i = universe 64 * g + i
+	private final int[] counts; // Neighbor counts that appear in B or S
+	private final long[] inBirth; // -1 if counts[i] is in B, else 0
+	private final long[] inSurvival; // -1 if counts[i] is in S, else 0
+
+	/**
+	 * Pack the given societies. They are copied; later changes to them are not seen.
+	 *
+	 * @param societies The societies to step, all with the same size.
+	 * @param rule The rule to apply.
+	 * @param boundary BoundaryMode.DEAD or BoundaryMode.TORUS.
+	 * @throws IllegalArgumentException if the sizes differ or the mode is not supported.
+	 */
+	public BatchGameOfLife(List<GameOfLife> societies, LifeRule rule, BoundaryMode boundary) {
+		if (boundary == BoundaryMode.KLEIN_BOTTLE)
+			throw new IllegalArgumentException("Batch stepping supports DEAD and TORUS boundaries only");
+		this.rule = rule;
+		this.boundary = boundary;
+		universes = societies.size();
+		rows = societies.get(0).numberOfRows();
+		cols = societies.get(0).numberOfColumns();
+		groups = new long[(universes + 63) / 64][rows * cols];
+
+		boolean[] table = rule.table();
+		int used = 0;
+		for (int n = 0; n <= 8; n++)
+			if (table[n] || table[9 + n])
+				used++;
+		counts = new int[used];
+		inBirth = new long[used];
+		inSurvival = new long[used];
+		for (int n = 0, i = 0; n <= 8; n++) {
+			if (table[n] || table[9 + n]) {
+				counts[i] = n;
+				inBirth[i] = table[n] ? -1L : 0;
+				inSurvival[i] = table[9 + n] ? -1L : 0;
+				i++;
+			}
+		}
+
+		boolean[] row = new boolean[cols];
+		for (int u = 0; u < universes; u++) {
+			GameOfLife society = societies.get(u);
+			if (society.numberOfRows() != rows || society.numberOfColumns() != cols)
+				throw new IllegalArgumentException("All societies must be " + rows + " by " + cols);
+			long[] cells = groups[u >>> 6];
+			long lane = 1L << u;
+			for (int r = 0; r < rows; r++) {
+				society.copyRow(r, row);
+				for (int c = 0; c < cols; c++)
+					if (row[c])
+						cells[r * cols + c] |= lane;
+			}
+		}
+	}
+
+	public int numberOfUniverses() {
+		return universes;
+	}
+
+	/**
+	 * Step every society the given number of generations.
+	 *
+	 * @param generations The number of updates.
+	 * @return populations[u][g], the live cell count of society u after g updates,
+	 *         for g = 0 through generations.
+	 */
+	public int[][] run(int generations) {
+		int[][] populations = new int[universes][generations + 1];
+		IntStream.range(0, groups.length).parallel().forEach(g -> runGroup(g, generations, populations));
+		return populations;
+	}
+
+	/**
+	 * @return True if society u currently has a cell at the given location.
+	 */
+	public boolean cellAt(int universe, int row, int col) {
+		if (col < 0 || col >= cols || row < 0 || row >= rows)
+			return false;
+		return (groups[universe >>> 6][row * cols + col] & (1L << universe)) != 0;
+	}
+
+	/**
+	 * Copy society u back out into a new GameOfLife.
+	 */
+	public GameOfLife toGameOfLife(int universe) {
+		GameOfLife society = new GameOfLife(rows, cols, rule, boundary);
+		for (int r = 0; r < rows; r++)
+			for (int c = 0; c < cols; c++)
+				if (cellAt(universe, r, c))
+					society.growCellAt(r, c);
+		return society;
+	}
+
+	// Steps one group of 64 universes, recording populations
+	private void runGroup(int group, int generations, int[][] populations) {
+		long[] cells = groups[group];
+		long[] next = new long[cells.length];
+		int first = group * 64;
+		int lanes = Math.min(64, universes - first);
+
+		count(cells, populations, first, lanes, 0);
+		for (int g = 1; g <= generations; g++) {
+			step(cells, next);
+			long[] swap = cells;
+			cells = next;
+			next = swap;
+			count(cells, populations, first, lanes, g);
+		}
+		groups[group] = cells;
+	}
+
+	// Adds each lane's live cells to its population at generation g
+	private void count(long[] cells, int[][] populations, int first, int lanes, int g) {
+		int[] totals = new int[64];
+		for (long word : cells) {
+			while (word != 0) {
+				totals[Long.numberOfTrailingZeros(word)]++;
+				word &= word - 1;
+			}
+		}
+		for (int lane = 0; lane < lanes; lane++)
+			populations[first + lane][g] = totals[lane];
+	}
+
+	// One generation for all 64 lanes
+	private void step(long[] cells, long[] next) {
+		boolean torus = boundary == BoundaryMode.TORUS;
+		long[] neighbors = new long[8];
+		for (int r = 0; r < rows; r++) {
+			int up = torus ? (r - 1 + rows) % rows : r - 1;
+			int down = torus ? (r + 1) % rows : r + 1;
+			for (int c = 0; c < cols; c++) {
+				int left = torus ? (c - 1 + cols) % cols : c - 1;
+				int right = torus ? (c + 1) % cols : c + 1;
+				neighbors[0] = cell(cells, up, left);
+				neighbors[1] = cell(cells, up, c);
+				neighbors[2] = cell(cells, up, right);
+				neighbors[3] = cell(cells, r, left);
+				neighbors[4] = cell(cells, r, right);
+				neighbors[5] = cell(cells, down, left);
+				neighbors[6] = cell(cells, down, c);
+				neighbors[7] = cell(cells, down, right);
+
+				// Bitwise sum of the 8 neighbors into a 4-bit count s3 s2 s1 s0
+				long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+				for (long n : neighbors) {
+					long carry0 = s0 & n;
+					s0 ^= n;
+					long carry1 = s1 & carry0;
+					s1 ^= carry0;
+					s3 |= s2 & carry1;
+					s2 ^= carry1;
+				}
+
+				// Lanes whose count is in B (born) or in S (survive)
+				long born = 0, survive = 0;
+				for (int i = 0; i < counts.length; i++) {
+					int k = counts[i];
+					// All-ones in the lanes whose count bits equal k's
+					long isK = ~(s0 ^ -(k & 1)) & ~(s1 ^ -(k >>> 1 & 1)) & ~(s2 ^ -(k >>> 2 & 1))
+							& ~(s3 ^ -(k >>> 3 & 1));
+					born |= isK & inBirth[i];
+					survive |= isK & inSurvival[i];
+				}
+				long alive = cells[r * cols + c];
+				next[r * cols + c] = (alive & survive) | (~alive & born);
+			}
+		}
+	}
+
+	// The cell word at (r, c), or 0 beyond a dead edge
+	private long cell(long[] cells, int r, int c) {
+		if (r < 0 || r >= rows || c < 0 || c >= cols)
+			return 0;
+		return cells[r * cols + c];
+	}
+}
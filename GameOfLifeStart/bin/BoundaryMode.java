@@ -0,0 +1,59 @@
+import java.util.Arrays;
+
+/**
+ * How a GameOfLife society treats the cells beyond its edges. The society is padded
+ * with one ghost row and column on every side, and the mode decides what the ghost
+ * cells copy once per generation, so counting neighbors never needs to test an edge.
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public enum BoundaryMode {
+	/** Cells beyond the edges are always dead. */
+	DEAD,
+	/** Top wraps to bottom and left wraps to right (the original behavior). */
+	TORUS,
+	/** Left wraps to right; top wraps to bottom with the columns mirrored. */
+	KLEIN_BOTTLE;
+
+	/**
+	 * Fill the ghost border of a padded society, whose real cells are at rows 1..rows
+	 * and columns 1..cols.
+	 *
+	 * @param cells The padded society, (rows + 2) by (cols + 2).
+	 * @param rows The number of real rows.
+	 * @param cols The number of real columns.
+	 */
+	public void fillGhosts(boolean[][] cells, int rows, int cols) {
+		// Left and right ghost columns of the real rows
+		for (int r = 1; r <= rows; r++) {
+			boolean[] row = cells[r];
+			if (this == DEAD) {
+				row[0] = false;
+				row[cols + 1] = false;
+			} else {
+				row[0] = row[cols];
+				row[cols + 1] = row[1];
+			}
+		}
+
+		// Top and bottom ghost rows, including the corners
+		boolean[] top = cells[0];
+		boolean[] bottom = cells[rows + 1];
+		switch (this) {
+		case DEAD:
+			Arrays.fill(top, false);
+			Arrays.fill(bottom, false);
+			break;
+		case TORUS:
+			System.arraycopy(cells[rows], 0, top, 0, cols + 2);
+			System.arraycopy(cells[1], 0, bottom, 0, cols + 2);
+			break;
+		case KLEIN_BOTTLE:
+			for (int c = 0; c <= cols + 1; c++) {
+				top[c] = cells[rows][cols + 1 - c];
+				bottom[c] = cells[1][cols + 1 - c];
+			}
+			break;
+		}
+	}
+}
@@ -0,0 +1,359 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs a Game of Life without a display, for benchmarks, smoke tests and batch
+ * runs on headless servers. The society is filled at random or from a pattern file,
+ * stepped a number of generations on the chosen engine, and the throughput and
+ * peak memory are reported. The final society can be written out in the same
+ * plaintext format that patterns are read from.
+ *
+ * Example:
+ * java GameOfLifeCLI --rows 2048 --cols 2048 --engine tiled --generations 500
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public class GameOfLifeCLI {
+
+	private static final String USAGE = String.join("\n",
+			"Usage: java GameOfLifeCLI [options]",
+			"  --rows N            Rows in the society (default 512)",
+			"  --cols N            Columns in the society (default 512)",
+			"  --rule RULE         Rule in B/S notation (default B3/S23)",
+			"  --boundary MODE     dead, torus or klein_bottle (default torus)",
+			"  --engine ENGINE     serial, tiled or offheap (default serial)",
+			"  --generations N     Number of updates, 0 or more (default 1000)",
+			"  --seed N            Seed for the random fill (default 1)",
+			"  --density D         Fraction of cells alive in the random fill (default 0.3)",
+			"  --pattern FILE      Start from a .cells or .rle pattern, centered, instead",
+			"  --dump FILE         Write the final society as plaintext, - for stdout",
+			"  --quiet             Print only the one-line summary");
+
+	// The operations the driver needs from each engine
+	private interface Engine extends AutoCloseable {
+		void growCellAt(int row, int col);
+
+		boolean cellAt(int row, int col);
+
+		void update();
+
+		long getPopulation();
+
+		@Override
+		default void close() {
+		}
+	}
+
+	private int rows = 512;
+	private int cols = 512;
+	private LifeRule rule = LifeRule.CONWAY;
+	private BoundaryMode boundary = BoundaryMode.TORUS;
+	private String engineName = "serial";
+	private long generations = 1000;
+	private long seed = 1;
+	private double density = 0.3;
+	private Path pattern;
+	private String dump;
+	private boolean quiet;
+
+	public static void main(String[] args) {
+		if (args.length > 0 && (args[0].equals("--help") || args[0].equals("-h"))) {
+			System.out.println(USAGE);
+			return;
+		}
+		GameOfLifeCLI cli = new GameOfLifeCLI();
+		try {
+			cli.parse(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+		try {
+			cli.run(System.out);
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	// Reads the options, throwing IllegalArgumentException with a message if any is bad
+	private void parse(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if (option.equals("--quiet")) {
+				quiet = true;
+				continue;
+			}
+			if (i + 1 == args.length)
+				throw new IllegalArgumentException("Missing value for " + option);
+			String value = args[++i];
+			try {
+				switch (option) {
+				case "--rows":
+					rows = positive(option, Integer.parseInt(value));
+					break;
+				case "--cols":
+					cols = positive(option, Integer.parseInt(value));
+					break;
+				case "--rule":
+					rule = LifeRule.parse(value);
+					break;
+				case "--boundary":
+					boundary = BoundaryMode.valueOf(value.toUpperCase());
+					break;
+				case "--engine":
+					if (!value.equals("serial") && !value.equals("tiled") && !value.equals("offheap"))
+						throw new IllegalArgumentException("Unknown engine: " + value);
+					engineName = value;
+					break;
+				case "--generations":
+					generations = Long.parseLong(value);
+					if (generations < 0)
+						throw new IllegalArgumentException("--generations must be at least 0");
+					break;
+				case "--seed":
+					seed = Long.parseLong(value);
+					break;
+				case "--density":
+					density = Double.parseDouble(value);
+					if (density < 0 || density > 1)
+						throw new IllegalArgumentException("--density must be from 0 to 1");
+					break;
+				case "--pattern":
+					pattern = Paths.get(value);
+					break;
+				case "--dump":
+					dump = value;
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option: " + option);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Bad number for " + option + ": " + value);
+			}
+		}
+	}
+
+	private static int positive(String option, int value) {
+		if (value < 1)
+			throw new IllegalArgumentException(option + " must be at least 1");
+		return value;
+	}
+
+	private void run(PrintStream out) throws IOException {
+		List<int[]> cells = pattern == null ? null : readPattern(pattern);
+		try (Engine engine = createEngine()) {
+			long start = System.nanoTime();
+			if (cells == null) {
+				Random random = new Random(seed);
+				for (int r = 0; r < rows; r++)
+					for (int c = 0; c < cols; c++)
+						if (random.nextDouble() < density)
+							engine.growCellAt(r, c);
+			} else {
+				int height = 0, width = 0;
+				for (int[] cell : cells) {
+					height = Math.max(height, cell[0] + 1);
+					width = Math.max(width, cell[1] + 1);
+				}
+				if (height > rows || width > cols)
+					throw new IOException("Pattern is " + height + " by " + width + ", larger than the society");
+				int top = (rows - height) / 2, left = (cols - width) / 2;
+				for (int[] cell : cells)
+					engine.growCellAt(top + cell[0], left + cell[1]);
+			}
+			double setupSeconds = (System.nanoTime() - start) / 1e9;
+			if (!quiet)
+				out.printf("%s engine, %d x %d, %s, %s, initial population %d (%.2f s to fill)%n", engineName,
+						rows, cols, rule, boundary, engine.getPopulation(), setupSeconds);
+
+			start = System.nanoTime();
+			for (long g = 0; g < generations; g++)
+				engine.update();
+			double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-9);
+
+			double generationsPerSecond = generations / seconds;
+			out.printf("generations=%d seconds=%.3f generations/sec=%.1f cells/sec=%.3e population=%d"
+					+ " peakHeapMB=%d directMB=%d%n", generations, seconds, generationsPerSecond,
+					generationsPerSecond * rows * cols, engine.getPopulation(), peakHeapBytes() >> 20,
+					directBytes() >> 20);
+
+			if (dump != null)
+				dump(engine);
+		}
+	}
+
+	private Engine createEngine() {
+		switch (engineName) {
+		case "tiled": {
+			TiledGameOfLife society = new TiledGameOfLife(rows, cols, rule, boundary);
+			return new Engine() {
+				public void growCellAt(int row, int col) {
+					society.growCellAt(row, col);
+				}
+
+				public boolean cellAt(int row, int col) {
+					return society.cellAt(row, col);
+				}
+
+				public void update() {
+					society.update();
+				}
+
+				public long getPopulation() {
+					return society.getPopulation();
+				}
+			};
+		}
+		case "offheap": {
+			OffHeapGameOfLife society = new OffHeapGameOfLife(rows, cols, rule, boundary);
+			return new Engine() {
+				public void growCellAt(int row, int col) {
+					society.growCellAt(row, col);
+				}
+
+				public boolean cellAt(int row, int col) {
+					return society.cellAt(row, col);
+				}
+
+				public void update() {
+					society.update();
+				}
+
+				public long getPopulation() {
+					return society.getPopulation();
+				}
+
+				public void close() {
+					society.close();
+				}
+			};
+		}
+		default: {
+			GameOfLife society = new GameOfLife(rows, cols, rule, boundary);
+			return new Engine() {
+				public void growCellAt(int row, int col) {
+					society.growCellAt(row, col);
+				}
+
+				public boolean cellAt(int row, int col) {
+					return society.cellAt(row, col);
+				}
+
+				public void update() {
+					society.update();
+				}
+
+				public long getPopulation() {
+					return society.getPopulation();
+				}
+			};
+		}
+		}
+	}
+
+	/*
+	 * Read the live cells of a pattern as {row, col} pairs counted from its top left.
+	 * Files ending in .rle are read as run length encoded; anything else as plaintext,
+	 * where lines starting with ! are comments and O or * is a live cell.
+	 */
+	static List<int[]> readPattern(Path file) throws IOException {
+		List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		List<int[]> cells = new ArrayList<>();
+		if (file.toString().toLowerCase().endsWith(".rle")) {
+			int row = 0, col = 0, run = 0;
+			boolean header = false;
+			reading: for (String line : lines) {
+				line = line.trim();
+				if (line.startsWith("#") || line.isEmpty())
+					continue;
+				if (!header) {
+					header = true;
+					if (line.startsWith("x"))
+						continue;
+				}
+				for (char ch : line.toCharArray()) {
+					if (Character.isDigit(ch)) {
+						run = run * 10 + (ch - '0');
+						continue;
+					}
+					int count = run == 0 ? 1 : run;
+					run = 0;
+					if (ch == 'b' || ch == '.') {
+						col += count;
+					} else if (ch == '$') {
+						row += count;
+						col = 0;
+					} else if (ch == '!') {
+						break reading;
+					} else if (!Character.isWhitespace(ch)) {
+						for (int i = 0; i < count; i++)
+							cells.add(new int[] { row, col++ });
+					}
+				}
+			}
+		} else {
+			int row = 0;
+			for (String line : lines) {
+				if (line.startsWith("!"))
+					continue;
+				for (int col = 0; col < line.length(); col++)
+					if (line.charAt(col) == 'O' || line.charAt(col) == '*')
+						cells.add(new int[] { row, col });
+				row++;
+			}
+		}
+		return cells;
+	}
+
+	// Writes the society as plaintext, readable again with --pattern
+	private void dump(Engine engine) throws IOException {
+		PrintWriter writer = dump.equals("-") ? new PrintWriter(System.out)
+				: new PrintWriter(Files.newBufferedWriter(Paths.get(dump), StandardCharsets.UTF_8));
+		writer.println("!Name: generation " + generations);
+		writer.println("!" + rows + " x " + cols + " " + rule + " " + boundary);
+		StringBuilder line = new StringBuilder(cols);
+		for (int r = 0; r < rows; r++) {
+			line.setLength(0);
+			for (int c = 0; c < cols; c++)
+				line.append(engine.cellAt(r, c) ? 'O' : '.');
+			writer.println(line);
+		}
+		if (dump.equals("-"))
+			writer.flush();
+		else
+			writer.close();
+		if (writer.checkError())
+			throw new IOException("Could not write " + dump);
+	}
+
+	// The sum of the peak usage of every heap memory pool since the JVM started
+	private static long peakHeapBytes() {
+		long total = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP)
+				total += pool.getPeakUsage().getUsed();
+		return total;
+	}
+
+	// Memory held by direct buffers, where the offheap engine keeps its cells
+	private static long directBytes() {
+		for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+			if (pool.getName().equals("direct"))
+				return pool.getMemoryUsed();
+		return 0;
+	}
+}
@@ -9,14 +9,13 @@
  * @author Rick Mercer
  */
 import java.awt.BorderLayout;
-import java.awt.Color;
 import java.awt.Container;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 
-import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -30,7 +29,12 @@ public class GameOfLifeGUI extends JFrame {
 
 	private static final long serialVersionUID = 1L;
 
+	// Optional arguments: rows columns
 	public static void main(String[] args) {
+		if (args.length == 2) {
+			ROWS = Integer.parseInt(args[0]);
+			COLS = Integer.parseInt(args[1]);
+		}
 		new GameOfLifeGUI().setVisible(true);
 	}
 
@@ -38,17 +42,19 @@ public class GameOfLifeGUI extends JFrame {
 	private JButton stepButton = new JButton("Step");
 	private JButton animationButton = new JButton("Start");
 	private JButton clearButton = new JButton("Clear");
+	private JCheckBox backgroundBox = new JCheckBox("Background", false);
 	private JComboBox<?> selections;
 	private JLabel updateCounterLabel = new JLabel("Updates: ");
 	private Timer timer;
 	private int delay = 500; // Milliseconds
-	private int updateCounter = 0;
+	private long updateCounter = 0;
 	private String[] list = { "Pre Made", "Gliders", "Queen", "Mystery" };
 	private JSlider sliderBar;
 	public static int ROWS = 40;
 	public static int COLS = 70;
 	private boolean frozen = true;
-	private JButton[][] cells;
+	private SocietyCanvas canvas;
+	private GenerationPipeline pipeline = new GenerationPipeline();
 
 	public GameOfLifeGUI() {
 		setTitle("John Conway's Game of Life");
@@ -58,27 +64,15 @@ public class GameOfLifeGUI extends JFrame {
 		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
 		society = new GameOfLife(ROWS, COLS);
-		JPanel panelWithCells = new JPanel();
-		panelWithCells.setLayout(new GridLayout(ROWS, COLS));
-		cells = new JButton[ROWS][COLS];
+		canvas = new SocietyCanvas(ROWS, COLS);
+		canvas.setCellListener(new CellListener());
 
 		clearButton.addActionListener(new ClearButtonListener());
 
-		ButtonListener buttonListener = new ButtonListener();
-		for (int r = 0; r < ROWS; r++)
-			for (int c = 0; c < COLS; c++) {
-				cells[r][c] = new JButton();
-				cells[r][c].setBackground(Color.LIGHT_GRAY);
-				cells[r][c].addActionListener(buttonListener);
-				cells[r][c].setBorderPainted(true);
-				cells[r][c].setBorder(BorderFactory.createMatteBorder(1, 1, 1, 1, Color.LIGHT_GRAY));
-				panelWithCells.add(cells[r][c]);
-			}
-
 		Container cp = getContentPane();
 		cp.add(new JLabel("     "), BorderLayout.WEST);
 		cp.add(new JLabel(), BorderLayout.EAST);
-		cp.add(panelWithCells, BorderLayout.CENTER);
+		cp.add(canvas, BorderLayout.CENTER);
 		animationButton.addActionListener(new AnimationButtonListener());
 		stepButton.addActionListener(new StepButtonListener());
 
@@ -92,7 +86,8 @@ public class GameOfLifeGUI extends JFrame {
 		topPanel.add(selections);
 		topPanel.add(clearButton);
 		topPanel.add(updateCounterLabel);
-		topPanel.add(new JLabel(""));
+		topPanel.add(backgroundBox);
+		backgroundBox.addActionListener(new BackgroundBoxListener());
 		cp.add(topPanel, BorderLayout.NORTH);
 		sliderBar = new JSlider();
 		sliderBar = new JSlider(JSlider.HORIZONTAL, 0, 2000, delay);
@@ -119,27 +114,49 @@ public class GameOfLifeGUI extends JFrame {
 	}
 
 	// From the Java Tutorial
-	// Can be invoked by any thread (since timer is thread-safe).
+	// In background mode the generations are computed by the pipeline's thread
+	// and the timer only shows the latest one. The pipeline runs as fast as it
+	// can; the slider only sets how often the timer repaints.
 	public void startAnimation() {
 		if (!frozen && !timer.isRunning()) {
+			if (backgroundBox.isSelected())
+				pipeline.start(society, updateCounter);
 			timer.start();
 		}
 	}
 
 	// From the Java Tutorial
-	// Can be invoked by any thread (since timer is thread-safe).
 	public void stopAnimation() {
 		// Stop the animating thread.
 		if (timer.isRunning())
 			timer.stop();
+		stopPipeline();
+	}
+
+	// Takes the society back from the background thread, if it has it
+	private void stopPipeline() {
+		if (pipeline.isRunning()) {
+			pipeline.stop();
+			updateCounter = pipeline.getGeneration();
+			updateCounterLabel.setText("Updates: " + updateCounter);
+			updateCanvas();
+		}
 	}
 
 	private class SocietyUpdater implements ActionListener {
 		public void actionPerformed(ActionEvent ae) {
+			if (pipeline.isRunning()) {
+				SocietySnapshot snapshot = pipeline.latest();
+				if (snapshot != null && snapshot.getGeneration() != updateCounter) {
+					updateCounter = snapshot.getGeneration();
+					updateCounterLabel.setText("Updates: " + updateCounter);
+					canvas.display(snapshot);
+				}
+				return;
+			}
 			updateCounterLabel.setText("Updates: " + ++updateCounter);
 			society.update();
-			updateButtons();
-			readTheButtons();
+			updateCanvas();
 		}
 	}
 
@@ -149,7 +166,6 @@ public class GameOfLifeGUI extends JFrame {
 			if (frozen) {
 				frozen = false;
 				animationButton.setText("Stop ");
-				readTheButtons();
 				startAnimation();
 			} else {
 				frozen = true;
@@ -165,42 +181,44 @@ public class GameOfLifeGUI extends JFrame {
 		}
 	}
 
-	private class ButtonListener implements ActionListener {
+	// Switches a running animation between the timer and the background thread
+	private class BackgroundBoxListener implements ActionListener {
 		public void actionPerformed(ActionEvent ae) {
-			JButton clickedButton = (JButton) ae.getSource();
-			if (clickedButton.getText().equals(" ") && frozen) {
-				clickedButton.setText("O");
+			if (frozen)
+				return; // Takes effect on the next Start
+			if (backgroundBox.isSelected()) {
+				if (!pipeline.isRunning())
+					pipeline.start(society, updateCounter);
 			} else {
-				clickedButton.setText(" ");
+				stopPipeline();
 			}
 		}
 	}
 
+	private class CellListener implements SocietyCanvas.CellListener {
+		public void cellClicked(int row, int col) {
+			if (pipeline.isRunning())
+				return; // The society belongs to the background thread
+			if (!society.cellAt(row, col) && frozen) {
+				society.growCellAt(row, col);
+			} else {
+				society.killCellAt(row, col);
+			}
+			updateCanvas();
+		}
+	}
+
 	private class StepButtonListener implements ActionListener {
 		public void actionPerformed(ActionEvent e) {
 			if (!frozen)
 				stopAnimation();
-			readTheButtons();
 			society.update();
-			updateButtons();
+			updateCanvas();
 		}
 	}
 
-	private void readTheButtons() {
-		for (int r = 0; r < society.numberOfRows(); r++)
-			for (int c = 0; c < society.numberOfColumns(); c++)
-				if (cells[r][c].getText().equals("O"))
-					society.growCellAt(r, c);
-	}
-
-	public void updateButtons() {
-		for (int r = 0; r < society.numberOfRows(); r++)
-			for (int c = 0; c < society.numberOfColumns(); c++)
-				if (society.cellAt(r, c)) {
-					cells[r][c].setText("O");
-				} else {
-					cells[r][c].setText(" ");
-				}
+	public void updateCanvas() {
+		canvas.display(society);
 	}
 
 	private class ClearButtonListener implements ActionListener {
@@ -214,12 +232,7 @@ public class GameOfLifeGUI extends JFrame {
 		this.stopAnimation();
 		updateCounter = 0;
 		updateCounterLabel.setText("Updates: " + updateCounter);
-
-		for (int r = 0; r < society.numberOfRows(); r++)
-			for (int c = 0; c < society.numberOfColumns(); c++) {
-				// cells[r][c].setBackground(Color.LIGHT_GRAY);
-				cells[r][c].setText(" ");
-			}
+		updateCanvas();
 	}
 
 	private class SelectionListener implements ActionListener {
@@ -236,8 +249,7 @@ public class GameOfLifeGUI extends JFrame {
 			else if (choice.equals("Mystery"))
 				mystery();
 
-			readTheButtons();
-			updateButtons();
+			updateCanvas();
 			startAnimation();
 		}
 	}
@@ -0,0 +1,9 @@
+/**
+ * Receives the statistics of every update of a GameOfLife it is added to. The
+ * statistics are only gathered while at least one listener is registered.
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public interface GenerationListener {
+	void generationComputed(GameOfLife society, GenerationStats stats);
+}
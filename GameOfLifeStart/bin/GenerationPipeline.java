@@ -0,0 +1,149 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Computes generations of a GameOfLife on a background thread. After every update
+ * the producer publishes an immutable SocietySnapshot into a small ring, overwriting
+ * the oldest entry, so it never waits for the display. A consumer such as the Event
+ * Dispatch Thread asks only for the latest snapshot, skipping any it was too slow
+ * to show.
+ *
+ * While the pipeline is running the society belongs to the producer thread and
+ * must not be touched by anyone else.
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public class GenerationPipeline {
+
+	public static final int DEFAULT_RING_SIZE = 4;
+	private static final long MAX_SLEEP_NANOS = 20_000_000; // Longest sleep between checks of the limit
+
+	private final AtomicReferenceArray<SocietySnapshot> ring;
+	private final AtomicLong published = new AtomicLong(-1); // Generation of the newest snapshot
+	private volatile long periodNanos; // Least time per generation, 0 means as fast as possible
+	private volatile boolean running;
+	private volatile long generation; // Updates done so far
+	private long lastTaken = -1; // Generation of the snapshot last returned by latest()
+	private long dropped; // Snapshots never returned by latest()
+	private Thread producer;
+
+	public GenerationPipeline() {
+		this(DEFAULT_RING_SIZE);
+	}
+
+	/**
+	 * @param ringSize The number of snapshots kept.
+	 */
+	public GenerationPipeline(int ringSize) {
+		ring = new AtomicReferenceArray<>(ringSize);
+	}
+
+	/**
+	 * Start computing generations of the society on a new thread.
+	 *
+	 * @param society The society to update. It is owned by the pipeline until stop().
+	 * @param startGeneration The number of updates the society has already gone through.
+	 */
+	public synchronized void start(GameOfLife society, long startGeneration) {
+		if (running)
+			stop();
+		generation = startGeneration;
+		lastTaken = startGeneration;
+		running = true;
+		publish(new SocietySnapshot(society, startGeneration));
+		producer = new Thread(() -> produce(society), "GameOfLife-generations");
+		producer.setDaemon(true);
+		producer.start();
+	}
+
+	/**
+	 * Stop the producer and wait for it to finish its current generation. Afterwards
+	 * the society may be used again by the caller.
+	 */
+	public synchronized void stop() {
+		running = false;
+		if (producer != null) {
+			boolean interrupted = false;
+			while (producer.isAlive()) {
+				try {
+					producer.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			producer = null;
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * @return The number of updates done so far.
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @return How many published generations were skipped by latest().
+	 */
+	public synchronized long getDroppedFrames() {
+		return dropped;
+	}
+
+	/**
+	 * Limit the simulation speed. May be called while the pipeline is running.
+	 *
+	 * @param perSecond The most generations to compute per second, or 0 for no limit.
+	 */
+	public void setMaxGenerationsPerSecond(double perSecond) {
+		periodNanos = perSecond > 0 ? (long) (1_000_000_000L / perSecond) : 0;
+	}
+
+	/**
+	 * @return The newest snapshot, or null if nothing has been published yet.
+	 */
+	public synchronized SocietySnapshot latest() {
+		long newest = published.get();
+		if (newest < 0)
+			return null;
+		SocietySnapshot snapshot = ring.get((int) (newest % ring.length()));
+		if (snapshot != null && snapshot.getGeneration() > lastTaken) {
+			dropped += snapshot.getGeneration() - lastTaken - 1;
+			lastTaken = snapshot.getGeneration();
+		}
+		return snapshot;
+	}
+
+	// The producer loop
+	private void produce(GameOfLife society) {
+		while (running) {
+			long started = System.nanoTime();
+			society.update();
+			generation++;
+			publish(new SocietySnapshot(society, generation));
+
+			// Wait out the period in short sleeps, so a new limit or stop() takes effect at once
+			while (running) {
+				long period = periodNanos;
+				long wait = Math.min(started + period - System.nanoTime(), MAX_SLEEP_NANOS);
+				if (period == 0 || wait <= 0)
+					break;
+				try {
+					Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+
+	private void publish(SocietySnapshot snapshot) {
+		ring.set((int) (snapshot.getGeneration() % ring.length()), snapshot);
+		published.set(snapshot.getGeneration());
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * What happened in one GameOfLife update: the population after it, the cells born
+ * and died, the bounding box of the live cells and how long the update took.
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public final class GenerationStats {
+
+	private final long generation;
+	private final int population;
+	private final int births;
+	private final int deaths;
+	private final int minRow, minCol, maxRow, maxCol;
+	private final long nanos;
+
+	public GenerationStats(long generation, int population, int births, int deaths, int minRow, int minCol,
+			int maxRow, int maxCol, long nanos) {
+		this.generation = generation;
+		this.population = population;
+		this.births = births;
+		this.deaths = deaths;
+		this.minRow = minRow;
+		this.minCol = minCol;
+		this.maxRow = maxRow;
+		this.maxCol = maxCol;
+		this.nanos = nanos;
+	}
+
+	public long getGeneration() {
+		return generation;
+	}
+
+	public int getPopulation() {
+		return population;
+	}
+
+	public int getBirths() {
+		return births;
+	}
+
+	public int getDeaths() {
+		return deaths;
+	}
+
+	/*
+	 * The bounding box of the live cells, inclusive. All four are -1 when the society
+	 * is empty.
+	 */
+	public int getMinRow() {
+		return minRow;
+	}
+
+	public int getMinColumn() {
+		return minCol;
+	}
+
+	public int getMaxRow() {
+		return maxRow;
+	}
+
+	public int getMaxColumn() {
+		return maxCol;
+	}
+
+	/*
+	 * @return The time the update took, in nanoseconds.
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	@Override
+	public String toString() {
+		return "generation " + generation + ": population " + population + ", +" + births + " -" + deaths
+				+ ", box (" + minRow + "," + minCol + ")-(" + maxRow + "," + maxCol + "), " + nanos / 1000 + " us";
+	}
+}
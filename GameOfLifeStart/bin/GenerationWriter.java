@@ -0,0 +1,264 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Writes every Nth generation of a society to a file without slowing down the
+ * thread that steps it. The stepping thread only copies the society into a
+ * SocietySnapshot and puts it on a bounded queue; a background thread XORs each
+ * snapshot against the previous one, deflates the mostly-zero result and writes it.
+ * When the queue is full, the BLOCK policy waits for room and DROP skips the frame.
+ *
+ * Add the writer to a society with addGenerationListener, or call offer() directly.
+ * read() decodes a file written by this class.
+ *
+ * File layout: int MAGIC, int rows, int cols, int interval, then per frame
+ * long generation, int compressed length, compressed XOR delta (big-endian longs).
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public class GenerationWriter implements GenerationListener, Closeable {
+
+	public static final int MAGIC = 0x474F4C53; // "GOLS"
+
+	public enum BackPressure {
+		BLOCK, DROP
+	}
+
+	private static final SocietySnapshot END = new SocietySnapshot(-1, 0, 0, new long[0]);
+	private static final long POLL_MILLIS = 50; // How often a waiting put checks that the writer is alive
+
+	private final Path file;
+	private final int interval;
+	private final BackPressure policy;
+	private final BlockingQueue<SocietySnapshot> queue;
+	private final Thread writerThread;
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private volatile IOException failure;
+	private boolean closed;
+
+	/**
+	 * Start a writer thread for the given file.
+	 *
+	 * @param file The file to create or overwrite.
+	 * @param interval Write every interval-th generation, at least 1.
+	 * @param capacity The most snapshots waiting to be written.
+	 * @param policy What to do when that many are already waiting.
+	 */
+	public GenerationWriter(Path file, int interval, int capacity, BackPressure policy) {
+		this.file = file;
+		this.interval = Math.max(1, interval);
+		this.policy = policy;
+		queue = new ArrayBlockingQueue<>(capacity);
+		writerThread = new Thread(this::writeFrames, "GameOfLife-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	@Override
+	public void generationComputed(GameOfLife society, GenerationStats stats) {
+		offer(society);
+	}
+
+	/**
+	 * Queue the society for writing if its generation is a multiple of the interval.
+	 *
+	 * @param society The society just updated.
+	 * @return False if the frame was dropped because the queue was full.
+	 * @throws IllegalStateException if the writer is closed or failed, including
+	 *         while waiting for room under BLOCK.
+	 */
+	public boolean offer(GameOfLife society) {
+		if (society.getGeneration() % interval != 0)
+			return true;
+		if (closed)
+			throw new IllegalStateException("Writer is closed");
+		checkWriter();
+
+		SocietySnapshot snapshot = new SocietySnapshot(society, society.getGeneration());
+		if (policy == BackPressure.DROP) {
+			if (!queue.offer(snapshot)) {
+				dropped.incrementAndGet();
+				return false;
+			}
+			return true;
+		}
+		try {
+			// A writer that died would never make room, so wait in slices and look again
+			while (!queue.offer(snapshot, POLL_MILLIS, TimeUnit.MILLISECONDS))
+				checkWriter();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			dropped.incrementAndGet();
+			return false;
+		}
+	}
+
+	private void checkWriter() {
+		if (failure != null)
+			throw new IllegalStateException("Writing " + file + " failed", failure);
+		if (!writerThread.isAlive())
+			throw new IllegalStateException("Writer thread for " + file + " has stopped");
+	}
+
+	public long getFramesWritten() {
+		return written.get();
+	}
+
+	public long getFramesDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Write everything still queued, then close the file.
+	 *
+	 * @throws IOException if any frame could not be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			boolean interrupted = false;
+			// If the writer has failed it will not take END, so stop waiting when it dies
+			while (writerThread.isAlive()) {
+				try {
+					if (queue.offer(END, POLL_MILLIS, TimeUnit.MILLISECONDS))
+						break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			while (writerThread.isAlive()) {
+				try {
+					writerThread.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+	/**
+	 * Read back every frame of a file written by GenerationWriter.
+	 *
+	 * @param file The file to read.
+	 * @param frames Receives each snapshot in order.
+	 * @throws IOException if the file cannot be read or is not in this format.
+	 */
+	public static void read(Path file, Consumer<SocietySnapshot> frames) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC)
+				throw new IOException("Not a generation file: " + file);
+			int rows = in.readInt();
+			int cols = in.readInt();
+			in.readInt(); // interval
+			int words = rows * ((cols + 63) >>> 6);
+			long[] previous = new long[words];
+			byte[] raw = new byte[words * 8];
+			Inflater inflater = new Inflater();
+			try {
+				while (true) {
+					long generation;
+					try {
+						generation = in.readLong();
+					} catch (EOFException e) {
+						return;
+					}
+					byte[] compressed = new byte[in.readInt()];
+					in.readFully(compressed);
+					inflater.reset();
+					inflater.setInput(compressed);
+					if (inflater.inflate(raw) != raw.length)
+						throw new IOException("Corrupt frame at generation " + generation);
+					ByteBuffer delta = ByteBuffer.wrap(raw);
+					long[] bits = new long[words];
+					for (int i = 0; i < words; i++)
+						bits[i] = previous[i] ^ delta.getLong();
+					frames.accept(new SocietySnapshot(generation, rows, cols, bits));
+					previous = bits;
+				}
+			} catch (DataFormatException e) {
+				throw new IOException("Corrupt frame in " + file, e);
+			} finally {
+				inflater.end();
+			}
+		}
+	}
+
+	// The background thread: encode and write frames until END arrives
+	private void writeFrames() {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			long[] previous = null;
+			ByteBuffer raw = null;
+			byte[] compressed = null;
+			while (true) {
+				SocietySnapshot snapshot = queue.take();
+				if (snapshot == END)
+					break;
+				long[] bits = snapshot.words();
+				if (previous == null) {
+					out.writeInt(MAGIC);
+					out.writeInt(snapshot.numberOfRows());
+					out.writeInt(snapshot.numberOfColumns());
+					out.writeInt(interval);
+					previous = new long[bits.length];
+					raw = ByteBuffer.allocate(bits.length * 8);
+					compressed = new byte[raw.capacity() + raw.capacity() / 100 + 64];
+				}
+
+				raw.clear();
+				for (int i = 0; i < bits.length; i++)
+					raw.putLong(bits[i] ^ previous[i]);
+				deflater.reset();
+				deflater.setInput(raw.array());
+				deflater.finish();
+				int length = 0;
+				while (!deflater.finished()) {
+					if (length == compressed.length)
+						compressed = Arrays.copyOf(compressed, compressed.length * 2);
+					length += deflater.deflate(compressed, length, compressed.length - length);
+				}
+
+				out.writeLong(snapshot.getGeneration());
+				out.writeInt(length);
+				out.write(compressed, 0, length);
+				previous = bits;
+				written.incrementAndGet();
+			}
+		} catch (IOException e) {
+			failure = e;
+		} catch (InterruptedException e) {
+			failure = new IOException("Writer interrupted", e);
+		} catch (RuntimeException | Error e) {
+			failure = new IOException("Writer failed", e);
+			throw e;
+		} finally {
+			deflater.end();
+			if (failure != null)
+				queue.clear(); // Free the snapshots and any put() waiting for room
+		}
+	}
+}
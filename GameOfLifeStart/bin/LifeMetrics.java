@@ -0,0 +1,85 @@
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A GenerationListener that keeps the latest statistics and running totals and
+ * publishes them as a JMX MXBean.
+ *
+ * Usage: society.addGenerationListener(new LifeMetrics().register("main"));
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public class LifeMetrics implements GenerationListener, LifeMetricsMXBean {
+
+	private volatile GenerationStats last;
+	private volatile long totalNanos;
+	private volatile long updates;
+
+	/**
+	 * Register with the platform MBean server as GameOfLife:type=LifeMetrics,name=...
+	 *
+	 * @param name A name that tells this society apart from others.
+	 * @return this, for chaining.
+	 * @throws IllegalStateException if registration fails, e.g. the name is taken.
+	 */
+	public LifeMetrics register(String name) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+					new ObjectName("GameOfLife:type=LifeMetrics,name=" + ObjectName.quote(name)));
+		} catch (JMException e) {
+			throw new IllegalStateException("Cannot register metrics " + name, e);
+		}
+		return this;
+	}
+
+	@Override
+	public void generationComputed(GameOfLife society, GenerationStats stats) {
+		last = stats;
+		totalNanos += stats.getNanos();
+		updates++;
+	}
+
+	public GenerationStats getLastStats() {
+		return last;
+	}
+
+	public long getGeneration() {
+		GenerationStats stats = last;
+		return stats == null ? 0 : stats.getGeneration();
+	}
+
+	public int getPopulation() {
+		GenerationStats stats = last;
+		return stats == null ? 0 : stats.getPopulation();
+	}
+
+	public int getBirths() {
+		GenerationStats stats = last;
+		return stats == null ? 0 : stats.getBirths();
+	}
+
+	public int getDeaths() {
+		GenerationStats stats = last;
+		return stats == null ? 0 : stats.getDeaths();
+	}
+
+	public String getBoundingBox() {
+		GenerationStats stats = last;
+		if (stats == null || stats.getPopulation() == 0)
+			return "empty";
+		return "(" + stats.getMinRow() + "," + stats.getMinColumn() + ")-(" + stats.getMaxRow() + ","
+				+ stats.getMaxColumn() + ")";
+	}
+
+	public double getLastGenerationMillis() {
+		GenerationStats stats = last;
+		return stats == null ? 0 : stats.getNanos() / 1e6;
+	}
+
+	public double getAverageGenerationMillis() {
+		long count = updates;
+		return count == 0 ? 0 : totalNanos / 1e6 / count;
+	}
+}
@@ -0,0 +1,21 @@
+/**
+ * The management interface of LifeMetrics, for viewing a running society in
+ * JConsole or any other JMX client.
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public interface LifeMetricsMXBean {
+	long getGeneration();
+
+	int getPopulation();
+
+	int getBirths();
+
+	int getDeaths();
+
+	String getBoundingBox();
+
+	double getLastGenerationMillis();
+
+	double getAverageGenerationMillis();
+}
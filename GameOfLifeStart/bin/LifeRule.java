@@ -0,0 +1,115 @@
+/**
+ * An outer-totalistic Life-like rule such as Conway's B3/S23, where a cell's next
+ * state depends only on whether it is alive and how many of its 8 neighbors are.
+ * The rule is compiled into an 18-entry table indexed by (alive ? 9 : 0) + count,
+ * so applying it needs no branches on the neighbor count.
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public final class LifeRule {
+
+	public static final LifeRule CONWAY = parse("B3/S23");
+	public static final LifeRule HIGHLIFE = parse("B36/S23");
+	public static final LifeRule DAY_AND_NIGHT = parse("B3678/S34678");
+	public static final LifeRule SEEDS = parse("B2/S");
+
+	private final boolean[] next = new boolean[18]; // [0..8] births, [9..17] survivals
+	private final String notation;
+
+	private LifeRule(int birthMask, int survivalMask) {
+		StringBuilder b = new StringBuilder("B");
+		StringBuilder s = new StringBuilder("/S");
+		for (int count = 0; count <= 8; count++) {
+			if ((birthMask & (1 << count)) != 0) {
+				next[count] = true;
+				b.append(count);
+			}
+			if ((survivalMask & (1 << count)) != 0) {
+				next[9 + count] = true;
+				s.append(count);
+			}
+		}
+		notation = b.append(s).toString();
+	}
+
+	/**
+	 * Parse a rule in "B.../S..." notation, e.g. "B36/S23". The parts may come in
+	 * either order and are not case sensitive. The older "S/B" form without letters,
+	 * e.g. "23/36", is also accepted.
+	 *
+	 * @param rule The rule string.
+	 * @return The compiled rule.
+	 * @throws IllegalArgumentException if the string is not a valid rule.
+	 */
+	public static LifeRule parse(String rule) {
+		String[] parts = rule.trim().toUpperCase().split("/", -1);
+		if (parts.length != 2)
+			throw new IllegalArgumentException("Invalid rule: " + rule);
+
+		int birth = -1, survival = -1;
+		boolean lettered = !parts[0].isEmpty() && Character.isLetter(parts[0].charAt(0))
+				|| !parts[1].isEmpty() && Character.isLetter(parts[1].charAt(0));
+		for (int i = 0; i < 2; i++) {
+			String part = parts[i];
+			char kind;
+			if (lettered) {
+				if (part.isEmpty())
+					throw new IllegalArgumentException("Invalid rule: " + rule);
+				kind = part.charAt(0);
+				part = part.substring(1);
+			} else {
+				kind = i == 0 ? 'S' : 'B';
+			}
+			int mask = digitMask(part, rule);
+			if (kind == 'B' && birth < 0)
+				birth = mask;
+			else if (kind == 'S' && survival < 0)
+				survival = mask;
+			else
+				throw new IllegalArgumentException("Invalid rule: " + rule);
+		}
+		return new LifeRule(birth, survival);
+	}
+
+	/**
+	 * @param alive Whether the cell is alive now.
+	 * @param neighbors The number of live neighbors, 0 through 8.
+	 * @return Whether the cell is alive in the next generation.
+	 */
+	public boolean next(boolean alive, int neighbors) {
+		return next[alive ? 9 + neighbors : neighbors];
+	}
+
+	/**
+	 * @return A copy of the 18-entry transition table, births first.
+	 */
+	public boolean[] table() {
+		return next.clone();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof LifeRule && notation.equals(((LifeRule) other).notation);
+	}
+
+	@Override
+	public int hashCode() {
+		return notation.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return notation;
+	}
+
+	// Bit mask of the neighbor counts listed in part
+	private static int digitMask(String part, String rule) {
+		int mask = 0;
+		for (char ch : part.toCharArray()) {
+			if (ch < '0' || ch > '8')
+				throw new IllegalArgumentException("Invalid rule: " + rule);
+			mask |= 1 << (ch - '0');
+		}
+		return mask;
+	}
+}
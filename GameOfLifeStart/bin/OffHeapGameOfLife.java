@@ -0,0 +1,400 @@
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A society stored outside the Java heap, for universes far too large for
+ * GameOfLife's boolean arrays (100,000 by 100,000 is 10 billion cells). Cells are
+ * packed 64 to a long in direct ByteBuffers, the current generation and the next in
+ * separate buffers. Each buffer is split into chunks of whole rows of at most 1 GiB,
+ * so neither the heap nor the 2 GiB limit of a single buffer bounds the size.
+ *
+ * update() works on whole words: the eight neighbors of 64 cells are shifted into
+ * place and summed with bitwise adders, then the rule is applied with bitwise logic.
+ * Bands of rows are updated in parallel on the common fork/join pool.
+ *
+ * Direct memory is limited to the heap size unless the JVM is started with e.g.
+ * -XX:MaxDirectMemorySize=4g; a 100,000 by 100,000 society needs about 2.5 GB.
+ *
+ * The memory is not managed by the garbage collector, so call close() when done;
+ * after that every method but close() and isClosed() throws IllegalStateException.
+ * The society is not thread-safe.
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public class OffHeapGameOfLife implements AutoCloseable {
+
+	private static final int MAX_CHUNK_LONGS = 1 << 27; // 1 GiB
+	private static final int BAND_ROWS = 64; // Rows per parallel task
+
+	private final int rows;
+	private final int cols;
+	private final int wordsPerRow;
+	private final long lastMask; // Real columns in the last word of a row
+	private final int rowsPerChunk;
+	private final LifeRule rule;
+	private final BoundaryMode boundary;
+	private final int[] counts; // Neighbor counts that appear in B or S
+	private final long[] inBirth; // -1 if counts[i] is in B, else 0
+	private final long[] inSurvival; // -1 if counts[i] is in S, else 0
+
+	private ByteBuffer[] buffers; // Current generation, then next, chunk by chunk
+	private LongBuffer[] society;
+	private LongBuffer[] nextSociety;
+	private long population;
+	private long generation;
+
+	/**
+	 * Create an empty society evolving by Conway's rule on a torus.
+	 *
+	 * @param rows The number of rows.
+	 * @param cols The number of columns.
+	 */
+	public OffHeapGameOfLife(int rows, int cols) {
+		this(rows, cols, LifeRule.CONWAY, BoundaryMode.TORUS);
+	}
+
+	/**
+	 * Create an empty society with the given rule and boundary mode.
+	 *
+	 * @param rows The number of rows.
+	 * @param cols The number of columns.
+	 * @param rule The rule, e.g. LifeRule.CONWAY.
+	 * @param boundary What lies beyond the edges, e.g. BoundaryMode.DEAD.
+	 * @throws OutOfMemoryError if the direct memory limit is too low for the society.
+	 */
+	public OffHeapGameOfLife(int rows, int cols, LifeRule rule, BoundaryMode boundary) {
+		if (rows < 1 || cols < 1)
+			throw new IllegalArgumentException("Society must be at least 1 by 1");
+		this.rows = rows;
+		this.cols = cols;
+		this.rule = rule;
+		this.boundary = boundary;
+		wordsPerRow = (cols + 63) >>> 6;
+		lastMask = -1L >>> (64 * wordsPerRow - cols);
+		rowsPerChunk = Math.max(1, MAX_CHUNK_LONGS / wordsPerRow);
+
+		boolean[] table = rule.table();
+		int used = 0;
+		for (int n = 0; n <= 8; n++)
+			if (table[n] || table[9 + n])
+				used++;
+		counts = new int[used];
+		inBirth = new long[used];
+		inSurvival = new long[used];
+		for (int n = 0, i = 0; n <= 8; n++) {
+			if (table[n] || table[9 + n]) {
+				counts[i] = n;
+				inBirth[i] = table[n] ? -1L : 0;
+				inSurvival[i] = table[9 + n] ? -1L : 0;
+				i++;
+			}
+		}
+
+		int chunks = (rows + rowsPerChunk - 1) / rowsPerChunk;
+		buffers = new ByteBuffer[2 * chunks];
+		society = new LongBuffer[chunks];
+		nextSociety = new LongBuffer[chunks];
+		try {
+			for (int i = 0; i < chunks; i++) {
+				int chunkRows = Math.min(rowsPerChunk, rows - i * rowsPerChunk);
+				buffers[i] = ByteBuffer.allocateDirect(chunkRows * wordsPerRow * 8).order(ByteOrder.nativeOrder());
+				buffers[chunks + i] = ByteBuffer.allocateDirect(chunkRows * wordsPerRow * 8)
+						.order(ByteOrder.nativeOrder());
+				society[i] = buffers[i].asLongBuffer();
+				nextSociety[i] = buffers[chunks + i].asLongBuffer();
+			}
+		} catch (OutOfMemoryError e) {
+			close();
+			throw e;
+		}
+	}
+
+	public int numberOfRows() {
+		return rows;
+	}
+
+	public int numberOfColumns() {
+		return cols;
+	}
+
+	public LifeRule getRule() {
+		return rule;
+	}
+
+	public BoundaryMode getBoundaryMode() {
+		return boundary;
+	}
+
+	/**
+	 * @return The number of times update() has been called.
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @return The number of live cells. This can exceed Integer.MAX_VALUE.
+	 */
+	public long getPopulation() {
+		return population;
+	}
+
+	/**
+	 * @return The bytes of direct memory held for both generations.
+	 */
+	public long getAllocatedBytes() {
+		return 2L * rows * wordsPerRow * 8;
+	}
+
+	/**
+	 * Place a new cell in the society.
+	 *
+	 * @param row The row to grow the cell.
+	 * @param col The column to grow the cell.
+	 *
+	 *            Precondition: row and col are in range.
+	 */
+	public void growCellAt(int row, int col) {
+		LongBuffer chunk = chunk(society, row);
+		int index = wordIndex(row, col);
+		long word = chunk.get(index);
+		long bit = 1L << col;
+		if ((word & bit) == 0) {
+			chunk.put(index, word | bit);
+			population++;
+		}
+	}
+
+	/**
+	 * Remove the cell, if any, at the given location.
+	 *
+	 * @param row The row of the cell to remove.
+	 * @param col The column of the cell to remove.
+	 *
+	 *            Precondition: row and col are in range.
+	 */
+	public void killCellAt(int row, int col) {
+		LongBuffer chunk = chunk(society, row);
+		int index = wordIndex(row, col);
+		long word = chunk.get(index);
+		long bit = 1L << col;
+		if ((word & bit) != 0) {
+			chunk.put(index, word & ~bit);
+			population--;
+		}
+	}
+
+	/*
+	 * Return true if there is a cell at the given row and column, false if not or if
+	 * the location is out of range.
+	 */
+	public boolean cellAt(int row, int col) {
+		if (col < 0 || col >= cols || row < 0 || row >= rows)
+			return false;
+		return (chunk(society, row).get(wordIndex(row, col)) & (1L << col)) != 0;
+	}
+
+	/*
+	 * Copy one row into the given array, true where a cell exists.
+	 *
+	 * Precondition: row is in range and target.length >= numberOfColumns().
+	 */
+	public void copyRow(int row, boolean[] target) {
+		long[] words = new long[wordsPerRow];
+		readRow(society, row, words);
+		for (int c = 0; c < cols; c++)
+			target[c] = (words[c >>> 6] & (1L << c)) != 0;
+	}
+
+	/*
+	 * Update the state to represent the next society, applying the rule to 64 cells
+	 * at a time.
+	 */
+	public void update() {
+		checkOpen();
+		int bands = (rows + BAND_ROWS - 1) / BAND_ROWS;
+		population = IntStream.range(0, bands).parallel()
+				.mapToLong(b -> updateBand(b * BAND_ROWS, Math.min(rows, (b + 1) * BAND_ROWS))).sum();
+		LongBuffer[] swap = society;
+		society = nextSociety;
+		nextSociety = swap;
+		generation++;
+	}
+
+	public boolean isClosed() {
+		return buffers == null;
+	}
+
+	/**
+	 * Free the society's memory now rather than whenever the garbage collector gets
+	 * to the buffers. Closing twice has no effect.
+	 */
+	@Override
+	public void close() {
+		if (buffers == null)
+			return;
+		ByteBuffer[] freed = buffers;
+		buffers = null;
+		society = null;
+		nextSociety = null;
+		for (ByteBuffer buffer : freed)
+			if (buffer != null)
+				free(buffer);
+	}
+
+	// Computes rows from..to-1 into nextSociety, returning their population
+	private long updateBand(int from, int to) {
+		long[] above = new long[wordsPerRow];
+		long[] middle = new long[wordsPerRow];
+		long[] below = new long[wordsPerRow];
+		long[] result = new long[wordsPerRow];
+		long[] neighbors = new long[8];
+		loadRow(from - 1, above);
+		loadRow(from, middle);
+		long alive = 0;
+		for (int r = from; r < to; r++) {
+			loadRow(r + 1, below);
+			alive += nextRow(above, middle, below, result, neighbors);
+			writeRow(nextSociety, r, result);
+			long[] swap = above;
+			above = middle;
+			middle = below;
+			below = swap;
+		}
+		return alive;
+	}
+
+	// One generation of one row of words, returning its population
+	private long nextRow(long[] above, long[] middle, long[] below, long[] result, long[] neighbors) {
+		long alive = 0;
+		for (int w = 0; w < wordsPerRow; w++) {
+			long m = middle[w];
+			neighbors[0] = west(above, w);
+			neighbors[1] = above[w];
+			neighbors[2] = east(above, w);
+			neighbors[3] = west(middle, w);
+			neighbors[4] = east(middle, w);
+			neighbors[5] = west(below, w);
+			neighbors[6] = below[w];
+			neighbors[7] = east(below, w);
+
+			// Bitwise sum of the 8 neighbors into a 4-bit count s3 s2 s1 s0
+			long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+			for (long n : neighbors) {
+				long carry0 = s0 & n;
+				s0 ^= n;
+				long carry1 = s1 & carry0;
+				s1 ^= carry0;
+				s3 |= s2 & carry1;
+				s2 ^= carry1;
+			}
+
+			long born = 0, survive = 0;
+			for (int i = 0; i < counts.length; i++) {
+				int k = counts[i];
+				long isK = ~(s0 ^ -(k & 1)) & ~(s1 ^ -(k >>> 1 & 1)) & ~(s2 ^ -(k >>> 2 & 1))
+						& ~(s3 ^ -(k >>> 3 & 1));
+				born |= isK & inBirth[i];
+				survive |= isK & inSurvival[i];
+			}
+			long next = (m & survive) | (~m & born);
+			if (w == wordsPerRow - 1)
+				next &= lastMask;
+			result[w] = next;
+			alive += Long.bitCount(next);
+		}
+		return alive;
+	}
+
+	// The row shifted so each bit holds its western neighbor
+	private long west(long[] row, int w) {
+		long carry;
+		if (w > 0)
+			carry = row[w - 1] >>> 63;
+		else if (boundary != BoundaryMode.DEAD)
+			carry = row[wordsPerRow - 1] >>> ((cols - 1) & 63) & 1;
+		else
+			carry = 0;
+		return (row[w] << 1) | carry;
+	}
+
+	// The row shifted so each bit holds its eastern neighbor
+	private long east(long[] row, int w) {
+		long carry;
+		if (w < wordsPerRow - 1)
+			carry = row[w + 1] << 63;
+		else if (boundary != BoundaryMode.DEAD)
+			carry = (row[0] & 1) << ((cols - 1) & 63);
+		else
+			carry = 0;
+		return (row[w] >>> 1) | carry;
+	}
+
+	// Reads row r of the current society into words, where r may be one beyond
+	// either edge and the boundary mode decides what is there
+	private void loadRow(int r, long[] words) {
+		if (r >= 0 && r < rows) {
+			readRow(society, r, words);
+			return;
+		}
+		int wrapped = r < 0 ? rows - 1 : 0;
+		switch (boundary) {
+		case DEAD:
+			Arrays.fill(words, 0);
+			break;
+		case TORUS:
+			readRow(society, wrapped, words);
+			break;
+		case KLEIN_BOTTLE:
+			long[] original = new long[wordsPerRow];
+			readRow(society, wrapped, original);
+			Arrays.fill(words, 0);
+			for (int c = 0; c < cols; c++) {
+				int mirror = cols - 1 - c;
+				words[c >>> 6] |= (original[mirror >>> 6] >>> mirror & 1) << c;
+			}
+			break;
+		}
+	}
+
+	private void readRow(LongBuffer[] generation, int row, long[] words) {
+		chunk(generation, row).get((row % rowsPerChunk) * wordsPerRow, words, 0, wordsPerRow);
+	}
+
+	private void writeRow(LongBuffer[] generation, int row, long[] words) {
+		chunk(generation, row).put((row % rowsPerChunk) * wordsPerRow, words, 0, wordsPerRow);
+	}
+
+	private LongBuffer chunk(LongBuffer[] generation, int row) {
+		checkOpen();
+		return generation[row / rowsPerChunk];
+	}
+
+	private int wordIndex(int row, int col) {
+		return (row % rowsPerChunk) * wordsPerRow + (col >>> 6);
+	}
+
+	private void checkOpen() {
+		if (buffers == null)
+			throw new IllegalStateException("Society is closed");
+	}
+
+	// Releases a direct buffer's memory through sun.misc.Unsafe.invokeCleaner when
+	// the JDK has it; otherwise the memory goes when the buffer is collected
+	private static void free(ByteBuffer buffer) {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			invokeCleaner.invoke(theUnsafe.get(null), buffer);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Left to the garbage collector
+		}
+	}
+}
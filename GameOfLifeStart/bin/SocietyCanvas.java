@@ -0,0 +1,247 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * A single custom-painted view of a GameOfLife society. Each cell is one pixel of
+ * a BufferedImage whose int[] raster is written directly, and the image is scaled
+ * onto the screen. display() rewrites only the pixels whose cells changed and
+ * repaints only the screen rectangle around them.
+ *
+ * Left click reports the clicked cell to the CellListener, the mouse wheel zooms
+ * around the pointer and dragging with the right or middle button pans. Must be
+ * used on the Event Dispatch Thread.
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public class SocietyCanvas extends JComponent {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int ALIVE = 0x000000; // Pixel color of a live cell
+	public static final int DEAD = 0xD3D3D3; // Pixel color of an empty cell (light gray)
+	private static final double MIN_ZOOM = 0.05; // Screen pixels per cell
+	private static final double MAX_ZOOM = 64;
+
+	/*
+	 * Receives clicks on cells.
+	 */
+	public interface CellListener {
+		void cellClicked(int row, int col);
+	}
+
+	private final int rows;
+	private final int cols;
+	private final BufferedImage image; // One pixel per cell
+	private final int[] pixels; // The image's raster, row-major
+	private final boolean[] row; // One row of the society being displayed
+	private CellListener cellListener;
+	private double zoom = -1; // Screen pixels per cell; <= 0 means fit to window
+	private double panX; // Screen position of the society's left edge
+	private double panY; // Screen position of the society's top edge
+
+	/**
+	 * Create a canvas for societies of the given size. All cells start out dead.
+	 *
+	 * @param rows The number of rows in the societies to display.
+	 * @param cols The number of columns in the societies to display.
+	 */
+	public SocietyCanvas(int rows, int cols) {
+		this.rows = rows;
+		this.cols = cols;
+		image = new BufferedImage(cols, rows, BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		row = new boolean[cols];
+		Arrays.fill(pixels, DEAD);
+		setOpaque(true);
+		setPreferredSize(new Dimension(Math.min(cols * 12, 1600), Math.min(rows * 12, 1000)));
+
+		MouseHandler handler = new MouseHandler();
+		addMouseListener(handler);
+		addMouseMotionListener(handler);
+		addMouseWheelListener(handler);
+	}
+
+	public void setCellListener(CellListener listener) {
+		cellListener = listener;
+	}
+
+	/**
+	 * Show the given society. Only cells that differ from what is currently shown are
+	 * written, and only the area around them is repainted.
+	 *
+	 * Precondition: society has the size given to the constructor.
+	 *
+	 * @param society The society to show.
+	 */
+	public void display(GameOfLife society) {
+		display(society::copyRow);
+	}
+
+	/**
+	 * Show the given snapshot, repainting only what changed.
+	 *
+	 * Precondition: snapshot has the size given to the constructor.
+	 *
+	 * @param snapshot The snapshot to show.
+	 */
+	public void display(SocietySnapshot snapshot) {
+		display(snapshot::copyRow);
+	}
+
+	/*
+	 * Anything that can copy out a row of cells.
+	 */
+	private interface RowSource {
+		void copyRow(int row, boolean[] target);
+	}
+
+	private void display(RowSource source) {
+		int minRow = rows, maxRow = -1, minCol = cols, maxCol = -1;
+		for (int r = 0; r < rows; r++) {
+			source.copyRow(r, row);
+			int base = r * cols;
+			for (int c = 0; c < cols; c++) {
+				// Compare without branching on the cell itself, which is unpredictable
+				if ((pixels[base + c] == ALIVE) != row[c]) {
+					pixels[base + c] = row[c] ? ALIVE : DEAD;
+					if (r < minRow)
+						minRow = r;
+					maxRow = r;
+					if (c < minCol)
+						minCol = c;
+					if (c > maxCol)
+						maxCol = c;
+				}
+			}
+		}
+		if (maxRow >= 0)
+			repaintCells(minRow, minCol, maxRow, maxCol);
+	}
+
+	/**
+	 * Zoom so that the whole society fits in the component again.
+	 */
+	public void fitToWindow() {
+		zoom = -1;
+		repaint();
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		if (zoom <= 0)
+			fit();
+
+		Graphics2D g2 = (Graphics2D) g;
+		Rectangle clip = g2.getClipBounds();
+		if (clip == null)
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		g2.setColor(getBackground() == null ? Color.WHITE : getBackground());
+		g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+		// Draw only the cells under the clip
+		int firstCol = Math.max(0, (int) Math.floor((clip.x - panX) / zoom));
+		int firstRow = Math.max(0, (int) Math.floor((clip.y - panY) / zoom));
+		int lastCol = Math.min(cols, (int) Math.ceil((clip.x + clip.width - panX) / zoom));
+		int lastRow = Math.min(rows, (int) Math.ceil((clip.y + clip.height - panY) / zoom));
+		if (firstCol >= lastCol || firstRow >= lastRow)
+			return;
+
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		g2.drawImage(image, screenX(firstCol), screenY(firstRow), screenX(lastCol), screenY(lastRow), firstCol,
+				firstRow, lastCol, lastRow, null);
+
+		// Cell borders, like the old button grid, once cells are big enough to see them
+		if (zoom >= 6) {
+			g2.setColor(Color.WHITE);
+			for (int c = firstCol; c <= lastCol; c++)
+				g2.drawLine(screenX(c), screenY(firstRow), screenX(c), screenY(lastRow));
+			for (int r = firstRow; r <= lastRow; r++)
+				g2.drawLine(screenX(firstCol), screenY(r), screenX(lastCol), screenY(r));
+		}
+	}
+
+	// Repaint the screen area covering a block of cells
+	private void repaintCells(int minRow, int minCol, int maxRow, int maxCol) {
+		if (zoom <= 0) {
+			repaint();
+			return;
+		}
+		int x = screenX(minCol) - 1;
+		int y = screenY(minRow) - 1;
+		repaint(x, y, screenX(maxCol + 1) - x + 2, screenY(maxRow + 1) - y + 2);
+	}
+
+	// Choose the zoom and pan that fit and center the society
+	private void fit() {
+		double width = Math.max(1, getWidth());
+		double height = Math.max(1, getHeight());
+		zoom = Math.max(MIN_ZOOM, Math.min(width / cols, height / rows));
+		panX = (width - cols * zoom) / 2;
+		panY = (height - rows * zoom) / 2;
+	}
+
+	private int screenX(int col) {
+		return (int) Math.round(panX + col * zoom);
+	}
+
+	private int screenY(int row) {
+		return (int) Math.round(panY + row * zoom);
+	}
+
+	private class MouseHandler extends MouseAdapter {
+		private int lastX, lastY; // Last drag position
+
+		@Override
+		public void mousePressed(MouseEvent e) {
+			lastX = e.getX();
+			lastY = e.getY();
+			if (SwingUtilities.isLeftMouseButton(e) && cellListener != null) {
+				if (zoom <= 0)
+					fit();
+				int col = (int) Math.floor((e.getX() - panX) / zoom);
+				int row = (int) Math.floor((e.getY() - panY) / zoom);
+				if (row >= 0 && row < rows && col >= 0 && col < cols)
+					cellListener.cellClicked(row, col);
+			}
+		}
+
+		@Override
+		public void mouseDragged(MouseEvent e) {
+			if (!SwingUtilities.isLeftMouseButton(e)) {
+				if (zoom <= 0)
+					fit();
+				panX += e.getX() - lastX;
+				panY += e.getY() - lastY;
+				lastX = e.getX();
+				lastY = e.getY();
+				repaint();
+			}
+		}
+
+		@Override
+		public void mouseWheelMoved(MouseWheelEvent e) {
+			if (zoom <= 0)
+				fit();
+			double factor = Math.pow(1.15, -e.getPreciseWheelRotation());
+			double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+			// Keep the cell under the pointer where it is
+			panX = e.getX() - (e.getX() - panX) * newZoom / zoom;
+			panY = e.getY() - (e.getY() - panY) * newZoom / zoom;
+			zoom = newZoom;
+			repaint();
+		}
+	}
+}
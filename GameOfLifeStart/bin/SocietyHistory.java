@@ -0,0 +1,65 @@
+import java.util.LinkedHashMap;
+
+/**
+ * A bounded record of the hashes of recent generations of a society, used to notice
+ * when it has settled into a still life (period 1) or an oscillation of period up to
+ * maxPeriod. Only the last maxPeriod hashes are kept.
+ *
+ * Detection is by 64-bit hash only, so two different societies with the same hash
+ * would be mistaken for a cycle; with random cell keys the chance is negligible.
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public class SocietyHistory {
+
+	private final int maxPeriod;
+	private final LinkedHashMap<Long, Long> seen; // Hash -> generation it was last seen
+	private long period; // 0 until a repeat is found
+	private long cycleStart = -1; // First generation of the detected cycle
+
+	/**
+	 * @param maxPeriod The longest cycle to look for. Must be at least 1.
+	 */
+	public SocietyHistory(int maxPeriod) {
+		this.maxPeriod = maxPeriod;
+		seen = new LinkedHashMap<>(maxPeriod * 2);
+	}
+
+	/**
+	 * Record the hash of a generation.
+	 *
+	 * @param hash The society's hash.
+	 * @param generation The generation number.
+	 * @return True if this generation repeats one seen within the last maxPeriod.
+	 */
+	public boolean record(long hash, long generation) {
+		Long previous = seen.remove(hash);
+		seen.put(hash, generation);
+		if (seen.size() > maxPeriod)
+			seen.remove(seen.keySet().iterator().next());
+
+		if (previous != null && period == 0) {
+			period = generation - previous;
+			cycleStart = previous;
+		}
+		return previous != null;
+	}
+
+	/**
+	 * @return The period of the first cycle found (1 for a still life), or 0 if none yet.
+	 */
+	public long getPeriod() {
+		return period;
+	}
+
+	/**
+	 * @return The generation at which the cycle was first entered, or -1 if none found.
+	 */
+	public long getCycleStart() {
+		return cycleStart;
+	}
+
+	public int getMaxPeriod() {
+		return maxPeriod;
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * An immutable copy of a GameOfLife society at one generation, packed 64 cells to
+ * a long. Snapshots can be handed from a simulation thread to the Event Dispatch
+ * Thread without any further locking.
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public final class SocietySnapshot {
+
+	private final long generation;
+	private final int rows;
+	private final int cols;
+	private final int wordsPerRow;
+	private final long[] bits; // Row-major, bit (c % 64) of word c / 64 is column c
+
+	/**
+	 * Copy the current state of a society.
+	 *
+	 * @param society The society to copy.
+	 * @param generation The number of updates the society has gone through.
+	 */
+	public SocietySnapshot(GameOfLife society, long generation) {
+		this.generation = generation;
+		rows = society.numberOfRows();
+		cols = society.numberOfColumns();
+		wordsPerRow = (cols + 63) >>> 6;
+		bits = new long[rows * wordsPerRow];
+
+		boolean[] row = new boolean[cols];
+		for (int r = 0; r < rows; r++) {
+			society.copyRow(r, row);
+			int base = r * wordsPerRow;
+			for (int c = 0; c < cols; c++)
+				if (row[c])
+					bits[base + (c >>> 6)] |= 1L << c;
+		}
+	}
+
+	/*
+	 * Rebuild a snapshot from its packed words, e.g. when reading one back from disk.
+	 * The array is kept, not copied.
+	 */
+	SocietySnapshot(long generation, int rows, int cols, long[] bits) {
+		this.generation = generation;
+		this.rows = rows;
+		this.cols = cols;
+		this.wordsPerRow = (cols + 63) >>> 6;
+		this.bits = bits;
+	}
+
+	/*
+	 * The packed cells, row-major with (numberOfColumns() + 63) / 64 words per row.
+	 * This is the snapshot's own array and must not be modified.
+	 */
+	long[] words() {
+		return bits;
+	}
+
+	public long getGeneration() {
+		return generation;
+	}
+
+	public int numberOfRows() {
+		return rows;
+	}
+
+	public int numberOfColumns() {
+		return cols;
+	}
+
+	/*
+	 * Return true if there was a cell at the given row and column, false if not or if
+	 * the location is out of range.
+	 */
+	public boolean cellAt(int row, int col) {
+		if (col >= 0 && col < cols && row >= 0 && row < rows)
+			return (bits[row * wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+		return false;
+	}
+
+	/*
+	 * Copy one row into the given array, true where a cell exists.
+	 *
+	 * Precondition: row is in range and target.length >= numberOfColumns().
+	 */
+	public void copyRow(int row, boolean[] target) {
+		int base = row * wordsPerRow;
+		for (int c = 0; c < cols; c++)
+			target[c] = (bits[base + (c >>> 6)] & (1L << c)) != 0;
+	}
+}
@@ -0,0 +1,485 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A society split into 64 by 64 tiles, each row of a tile packed into one long.
+ * update() only steps the tiles that can change: those that changed last
+ * generation, or that border one that did. The active tiles are forked as tasks on
+ * a work-stealing ForkJoinPool. When a glider gun fills one corner of a huge board,
+ * the work is that corner's tiles, spread over every core, not a scan of the whole
+ * board.
+ *
+ * Each tile reads its own halo, the ring of cells around it, from its neighbors
+ * under the boundary mode before it is stepped. Tiles write only their own next
+ * buffer, so the result is the same as GameOfLife.update() bit for bit.
+ *
+ * @author Rick Mercer and Ravshanbek Temurbekov
+ */
+public class TiledGameOfLife {
+
+	public static final int TILE_SIZE = 64;
+	private static final int GRAIN = 4; // Tiles per task before it stops splitting
+
+	private final int rows;
+	private final int cols;
+	private final int tileRows;
+	private final int tileCols;
+	private final LifeRule rule;
+	private final BoundaryMode boundary;
+	private final ForkJoinPool pool;
+	private final Tile[] tiles; // Row-major, tiles[tileRow * tileCols + tileCol]
+	private final int[][] dependents; // Tiles whose halo overlaps each tile
+	private final boolean[] active; // Scratch for collecting the active tiles
+	private final int[] counts; // Neighbor counts that appear in B or S
+	private final long[] inBirth; // -1 if counts[i] is in B, else 0
+	private final long[] inSurvival; // -1 if counts[i] is in S, else 0
+	private long population;
+	private long generation;
+	private int lastActive; // Tiles stepped by the last update()
+
+	// One square of the society. Only the task stepping a tile writes its next
+	// buffer, and only update() swaps buffers, after every task has finished.
+	private static final class Tile {
+		final int row0, col0, height, width;
+		final long mask; // Bits of the real columns
+		long[] cells;
+		long[] next;
+		boolean changed = true; // Changed in the last update or since, by an edit
+		boolean stepped; // next holds a different generation than cells
+		int nextPopulation;
+
+		Tile(int row0, int col0, int height, int width) {
+			this.row0 = row0;
+			this.col0 = col0;
+			this.height = height;
+			this.width = width;
+			mask = -1L >>> (64 - width);
+			cells = new long[height];
+			next = new long[height];
+		}
+	}
+
+	/**
+	 * Create an empty society, stepped on the common fork/join pool.
+	 *
+	 * @param rows The number of rows.
+	 * @param cols The number of columns.
+	 * @param rule The rule, e.g. LifeRule.CONWAY.
+	 * @param boundary What lies beyond the edges, e.g. BoundaryMode.TORUS.
+	 */
+	public TiledGameOfLife(int rows, int cols, LifeRule rule, BoundaryMode boundary) {
+		this(rows, cols, rule, boundary, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Create an empty society.
+	 *
+	 * @param rows The number of rows.
+	 * @param cols The number of columns.
+	 * @param rule The rule, e.g. LifeRule.CONWAY.
+	 * @param boundary What lies beyond the edges, e.g. BoundaryMode.TORUS.
+	 * @param pool The pool the active tiles are stepped on.
+	 */
+	public TiledGameOfLife(int rows, int cols, LifeRule rule, BoundaryMode boundary, ForkJoinPool pool) {
+		if (rows < 1 || cols < 1)
+			throw new IllegalArgumentException("Society must be at least 1 by 1");
+		this.rows = rows;
+		this.cols = cols;
+		this.rule = rule;
+		this.boundary = boundary;
+		this.pool = pool;
+		tileRows = (rows + TILE_SIZE - 1) / TILE_SIZE;
+		tileCols = (cols + TILE_SIZE - 1) / TILE_SIZE;
+		tiles = new Tile[tileRows * tileCols];
+		for (int tr = 0; tr < tileRows; tr++)
+			for (int tc = 0; tc < tileCols; tc++)
+				tiles[tr * tileCols + tc] = new Tile(tr * TILE_SIZE, tc * TILE_SIZE,
+						Math.min(TILE_SIZE, rows - tr * TILE_SIZE), Math.min(TILE_SIZE, cols - tc * TILE_SIZE));
+		dependents = findDependents();
+		active = new boolean[tiles.length];
+
+		boolean[] table = rule.table();
+		int used = 0;
+		for (int n = 0; n <= 8; n++)
+			if (table[n] || table[9 + n])
+				used++;
+		counts = new int[used];
+		inBirth = new long[used];
+		inSurvival = new long[used];
+		for (int n = 0, i = 0; n <= 8; n++) {
+			if (table[n] || table[9 + n]) {
+				counts[i] = n;
+				inBirth[i] = table[n] ? -1L : 0;
+				inSurvival[i] = table[9 + n] ? -1L : 0;
+				i++;
+			}
+		}
+	}
+
+	/**
+	 * Copy a GameOfLife, with its rule and boundary mode. Later changes to it are
+	 * not seen.
+	 *
+	 * @param society The society to copy.
+	 */
+	public TiledGameOfLife(GameOfLife society) {
+		this(society.numberOfRows(), society.numberOfColumns(), society.getRule(), society.getBoundaryMode());
+		boolean[] row = new boolean[cols];
+		for (int r = 0; r < rows; r++) {
+			society.copyRow(r, row);
+			for (int c = 0; c < cols; c++)
+				if (row[c])
+					growCellAt(r, c);
+		}
+		generation = society.getGeneration();
+	}
+
+	public int numberOfRows() {
+		return rows;
+	}
+
+	public int numberOfColumns() {
+		return cols;
+	}
+
+	public LifeRule getRule() {
+		return rule;
+	}
+
+	public BoundaryMode getBoundaryMode() {
+		return boundary;
+	}
+
+	/**
+	 * @return The number of times update() has been called.
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @return The number of live cells.
+	 */
+	public long getPopulation() {
+		return population;
+	}
+
+	/**
+	 * @return The total number of tiles.
+	 */
+	public int numberOfTiles() {
+		return tiles.length;
+	}
+
+	/**
+	 * @return The number of tiles stepped by the last update().
+	 */
+	public int getActiveTiles() {
+		return lastActive;
+	}
+
+	/**
+	 * Place a new cell in the society.
+	 *
+	 * @param row The row to grow the cell.
+	 * @param col The column to grow the cell.
+	 *
+	 *            Precondition: row and col are in range.
+	 */
+	public void growCellAt(int row, int col) {
+		Tile tile = tileAt(row, col);
+		long bit = 1L << col;
+		if ((tile.cells[row & 63] & bit) == 0) {
+			tile.cells[row & 63] |= bit;
+			tile.changed = true;
+			population++;
+		}
+	}
+
+	/**
+	 * Remove the cell, if any, at the given location.
+	 *
+	 * @param row The row of the cell to remove.
+	 * @param col The column of the cell to remove.
+	 *
+	 *            Precondition: row and col are in range.
+	 */
+	public void killCellAt(int row, int col) {
+		Tile tile = tileAt(row, col);
+		long bit = 1L << col;
+		if ((tile.cells[row & 63] & bit) != 0) {
+			tile.cells[row & 63] &= ~bit;
+			tile.changed = true;
+			population--;
+		}
+	}
+
+	/*
+	 * Return true if there is a cell at the given row and column, false if not or if
+	 * the location is out of range.
+	 */
+	public boolean cellAt(int row, int col) {
+		if (col < 0 || col >= cols || row < 0 || row >= rows)
+			return false;
+		return (tileAt(row, col).cells[row & 63] & (1L << col)) != 0;
+	}
+
+	/*
+	 * Copy one row into the given array, true where a cell exists.
+	 *
+	 * Precondition: row is in range and target.length >= numberOfColumns().
+	 */
+	public void copyRow(int row, boolean[] target) {
+		for (int tc = 0; tc < tileCols; tc++) {
+			Tile tile = tiles[(row >>> 6) * tileCols + tc];
+			long word = tile.cells[row & 63];
+			for (int c = 0; c < tile.width; c++)
+				target[tile.col0 + c] = (word & (1L << c)) != 0;
+		}
+	}
+
+	/**
+	 * Copy this society into a new GameOfLife with the same rule and boundary mode.
+	 */
+	public GameOfLife toGameOfLife() {
+		GameOfLife society = new GameOfLife(rows, cols, rule, boundary);
+		for (Tile tile : tiles)
+			for (int r = 0; r < tile.height; r++)
+				for (long word = tile.cells[r]; word != 0; word &= word - 1)
+					society.growCellAt(tile.row0 + r, tile.col0 + Long.numberOfTrailingZeros(word));
+		return society;
+	}
+
+	/*
+	 * Update the state to represent the next society. Tiles whose neighborhood did
+	 * not change since the last update keep their cells.
+	 */
+	public void update() {
+		// Active: every tile that changed, and every tile whose halo overlaps one
+		Arrays.fill(active, false);
+		for (int t = 0; t < tiles.length; t++) {
+			if (tiles[t].changed) {
+				active[t] = true;
+				for (int d : dependents[t])
+					active[d] = true;
+			}
+		}
+		int[] work = new int[tiles.length];
+		int n = 0;
+		for (int t = 0; t < tiles.length; t++)
+			if (active[t])
+				work[n++] = t;
+
+		if (n <= GRAIN)
+			new StepTask(work, 0, n).compute();
+		else
+			pool.invoke(new StepTask(work, 0, n));
+
+		for (Tile tile : tiles)
+			tile.changed = false;
+		for (int i = 0; i < n; i++) {
+			Tile tile = tiles[work[i]];
+			if (tile.stepped) {
+				long[] swap = tile.cells;
+				tile.cells = tile.next;
+				tile.next = swap;
+				population += tile.nextPopulation;
+				tile.changed = true;
+				tile.stepped = false;
+			}
+		}
+		lastActive = n;
+		generation++;
+	}
+
+	// Steps the tiles work[from..to-1], splitting the range while it is large
+	private final class StepTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] work;
+		private final int from, to;
+
+		StepTask(int[] work, int from, int to) {
+			this.work = work;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= GRAIN) {
+				for (int i = from; i < to; i++)
+					step(tiles[work[i]]);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new StepTask(work, from, middle), new StepTask(work, middle, to));
+			}
+		}
+	}
+
+	// Computes a tile's next generation into its next buffer. If anything changed,
+	// marks it stepped and leaves the population difference in nextPopulation.
+	private void step(Tile tile) {
+		int h = tile.height, w = tile.width;
+		int top = tile.row0 - 1, bottom = tile.row0 + h;
+		int left = tile.col0 - 1, right = tile.col0 + w;
+
+		// The halo: a row above and below, a column left and right, four corners
+		long north = haloRow(top, tile), south = haloRow(bottom, tile);
+		long west = 0, east = 0;
+		for (int r = 0; r < h; r++) {
+			west |= bit(tile.row0 + r, left) << r;
+			east |= bit(tile.row0 + r, right) << r;
+		}
+		long northWest = bit(top, left), northEast = bit(top, right);
+		long southWest = bit(bottom, left), southEast = bit(bottom, right);
+
+		long[] cells = tile.cells, next = tile.next;
+		long[] neighbors = new long[8];
+		boolean changed = false;
+		int difference = 0;
+		for (int r = 0; r < h; r++) {
+			long above = r == 0 ? north : cells[r - 1];
+			long aboveWest = r == 0 ? northWest : west >>> (r - 1) & 1;
+			long aboveEast = r == 0 ? northEast : east >>> (r - 1) & 1;
+			long below = r == h - 1 ? south : cells[r + 1];
+			long belowWest = r == h - 1 ? southWest : west >>> (r + 1) & 1;
+			long belowEast = r == h - 1 ? southEast : east >>> (r + 1) & 1;
+			long middle = cells[r];
+
+			neighbors[0] = (above << 1) | aboveWest;
+			neighbors[1] = above;
+			neighbors[2] = (above >>> 1) | (aboveEast << (w - 1));
+			neighbors[3] = (middle << 1) | (west >>> r & 1);
+			neighbors[4] = (middle >>> 1) | ((east >>> r & 1) << (w - 1));
+			neighbors[5] = (below << 1) | belowWest;
+			neighbors[6] = below;
+			neighbors[7] = (below >>> 1) | (belowEast << (w - 1));
+
+			// Bitwise sum of the 8 neighbors into a 4-bit count s3 s2 s1 s0
+			long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+			for (long n : neighbors) {
+				long carry0 = s0 & n;
+				s0 ^= n;
+				long carry1 = s1 & carry0;
+				s1 ^= carry0;
+				s3 |= s2 & carry1;
+				s2 ^= carry1;
+			}
+
+			long born = 0, survive = 0;
+			for (int i = 0; i < counts.length; i++) {
+				int k = counts[i];
+				long isK = ~(s0 ^ -(k & 1)) & ~(s1 ^ -(k >>> 1 & 1)) & ~(s2 ^ -(k >>> 2 & 1))
+						& ~(s3 ^ -(k >>> 3 & 1));
+				born |= isK & inBirth[i];
+				survive |= isK & inSurvival[i];
+			}
+			long result = ((middle & survive) | (~middle & born)) & tile.mask;
+			next[r] = result;
+			if (result != middle) {
+				changed = true;
+				difference += Long.bitCount(result) - Long.bitCount(middle);
+			}
+		}
+		tile.stepped = changed;
+		tile.nextPopulation = difference;
+	}
+
+	// The cells of society row r over the tile's columns, where r may be one beyond
+	// either edge
+	private long haloRow(int r, Tile tile) {
+		if (r >= 0 && r < rows)
+			return tiles[(r >>> 6) * tileCols + tile.col0 / TILE_SIZE].cells[r & 63];
+		if (boundary == BoundaryMode.DEAD)
+			return 0;
+		if (boundary == BoundaryMode.TORUS) {
+			int wrapped = r < 0 ? rows - 1 : 0;
+			return tiles[(wrapped >>> 6) * tileCols + tile.col0 / TILE_SIZE].cells[wrapped & 63];
+		}
+		long word = 0;
+		for (int c = 0; c < tile.width; c++)
+			word |= bit(r, tile.col0 + c) << c;
+		return word;
+	}
+
+	// 1 if the cell at (r, c) is alive, where (r, c) may be just outside the society
+	// and the boundary mode decides what is there
+	private long bit(int r, int c) {
+		if (r < 0 || r >= rows) {
+			if (boundary == BoundaryMode.DEAD)
+				return 0;
+			r = r < 0 ? rows - 1 : 0;
+			if (boundary == BoundaryMode.KLEIN_BOTTLE)
+				c = cols - 1 - c;
+		}
+		if (c < 0 || c >= cols) {
+			if (boundary == BoundaryMode.DEAD)
+				return 0;
+			c = c < 0 ? cols - 1 : 0;
+		}
+		return tileAt(r, c).cells[r & 63] >>> (c & 63) & 1;
+	}
+
+	// The index of the tile holding (r, c) after wrapping, or -1 beyond a dead edge
+	private int tileIndex(int r, int c) {
+		int[] wrapped = wrap(r, c);
+		if (wrapped == null)
+			return -1;
+		return (wrapped[0] >>> 6) * tileCols + (wrapped[1] >>> 6);
+	}
+
+	// Where (r, c) lands inside the society under the boundary mode, as bit() finds
+	// it, or null if it is beyond a dead edge
+	private int[] wrap(int r, int c) {
+		if (r < 0 || r >= rows) {
+			if (boundary == BoundaryMode.DEAD)
+				return null;
+			r = r < 0 ? rows - 1 : 0;
+			if (boundary == BoundaryMode.KLEIN_BOTTLE)
+				c = cols - 1 - c;
+		}
+		if (c < 0 || c >= cols) {
+			if (boundary == BoundaryMode.DEAD)
+				return null;
+			c = c < 0 ? cols - 1 : 0;
+		}
+		return new int[] { r, c };
+	}
+
+	private Tile tileAt(int row, int col) {
+		return tiles[(row >>> 6) * tileCols + (col >>> 6)];
+	}
+
+	// For each tile, the other tiles that read some of its cells as their halo
+	private int[][] findDependents() {
+		List<List<Integer>> lists = new ArrayList<>();
+		for (int t = 0; t < tiles.length; t++)
+			lists.add(new ArrayList<>());
+		for (int t = 0; t < tiles.length; t++) {
+			Tile tile = tiles[t];
+			int top = tile.row0 - 1, bottom = tile.row0 + tile.height;
+			int left = tile.col0 - 1, right = tile.col0 + tile.width;
+			for (int c = left; c <= right; c++) {
+				addDependent(lists, tileIndex(top, c), t);
+				addDependent(lists, tileIndex(bottom, c), t);
+			}
+			for (int r = tile.row0; r < bottom; r++) {
+				addDependent(lists, tileIndex(r, left), t);
+				addDependent(lists, tileIndex(r, right), t);
+			}
+		}
+		int[][] result = new int[tiles.length][];
+		for (int t = 0; t < tiles.length; t++)
+			result[t] = lists.get(t).stream().mapToInt(Integer::intValue).toArray();
+		return result;
+	}
+
+	private void addDependent(List<List<Integer>> lists, int source, int dependent) {
+		if (source >= 0 && source != dependent && !lists.get(source).contains(dependent))
+			lists.get(source).add(dependent);
+	}
+}
@@ -0,0 +1,36 @@
+/**
+ * Class: Attack
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: One planned attack, from a territory of the attacking player to an
+ * adjacent enemy territory, as produced by a TurnPlanner.
+ */
+public final class Attack {
+    private final Territory attacker; // The territory attacking
+    private final Territory defender; // The territory attacked
+
+    /**
+     * Constructor: Pairs an attacker with a defender.
+     *
+     * @param attacker The attacking territory (input).
+     * @param defender The defending territory (input).
+     */
+    public Attack(Territory attacker, Territory defender) {
+        this.attacker = attacker;
+        this.defender = defender;
+    }
+
+    public Territory getAttacker() {
+        return attacker;
+    }
+
+    public Territory getDefender() {
+        return defender;
+    }
+
+    @Override
+    public String toString() {
+        return attacker.getIdNum() + " -> " + defender.getIdNum();
+    }
+}
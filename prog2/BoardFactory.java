@@ -0,0 +1,250 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class: BoardFactory
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: Generates starting boards on background threads so that tournament games
+ * do not wait for victim selection, graph construction and dealing. Boards are kept
+ * in a bounded pool for each (rows, columns, victims, maxDice, players) key, and
+ * take() hands out a ready one when it can, generating it on the caller's thread
+ * only on a miss. Board n of a key always comes from the same seed, derived from the
+ * factory seed, the key and n, so a run with the same factory seed sees the same
+ * boards in the same order whichever thread made them.
+ */
+public class BoardFactory implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 16; // Ready boards kept per key
+
+    private final long seed; // Base seed for every board
+    private final int capacity; // Most ready boards kept per key
+    private final ExecutorService workers; // Background generator threads
+    private final ConcurrentHashMap<Key, Pool> pools = new ConcurrentHashMap<>();
+    private final long startNanos = System.nanoTime();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder generationNanos = new LongAdder();
+
+    // The board parameters that must match for two boards to be interchangeable
+    private static final class Key {
+        final int rows, columns, victims, maxDice, players;
+
+        Key(int rows, int columns, int victims, int maxDice, int players) {
+            this.rows = rows;
+            this.columns = columns;
+            this.victims = victims;
+            this.maxDice = maxDice;
+            this.players = players;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return rows == key.rows && columns == key.columns && victims == key.victims
+                    && maxDice == key.maxDice && players == key.players;
+        }
+
+        @Override
+        public int hashCode() {
+            return (((rows * 31 + columns) * 31 + victims) * 31 + maxDice) * 31 + players;
+        }
+    }
+
+    // The ready boards of one key, by their index in the key's sequence
+    private static final class Pool {
+        final Key key;
+        final ConcurrentSkipListMap<Long, BoardLayout> ready = new ConcurrentSkipListMap<>();
+        final AtomicLong handedOut = new AtomicLong(); // Index of the next board to hand out
+        final AtomicLong nextToMake = new AtomicLong(); // Index of the next board to generate
+        final AtomicBoolean filling = new AtomicBoolean(); // A refill task is queued or running
+
+        Pool(Key key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Constructor: Creates a factory with one background thread per spare core.
+     *
+     * @param seed The base seed for every board (input).
+     */
+    public BoardFactory(long seed) {
+        this(seed, Math.max(1, Runtime.getRuntime().availableProcessors() - 1), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor: Creates a factory.
+     *
+     * @param seed The base seed for every board (input).
+     * @param threads The number of background generator threads (input).
+     * @param capacity The most ready boards kept for each key (input).
+     */
+    public BoardFactory(long seed, int threads, int capacity) {
+        this.seed = seed;
+        this.capacity = capacity;
+        workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "BoardFactory");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Method: prefill
+     * Purpose: Starts generating boards for a key before the first take().
+     */
+    public void prefill(int rows, int columns, int victims, int maxDice, int players) {
+        scheduleFill(pool(rows, columns, victims, maxDice, players));
+    }
+
+    /**
+     * Method: take
+     * Purpose: Hands out the next board for a key, from the pool if it is ready,
+     * otherwise generated now, and tops the pool up in the background.
+     *
+     * @return The next board of the key's sequence.
+     */
+    public BoardLayout take(int rows, int columns, int victims, int maxDice, int players) {
+        Pool pool = pool(rows, columns, victims, maxDice, players);
+        long index = pool.handedOut.getAndIncrement();
+        BoardLayout layout = pool.ready.remove(index);
+        if (layout != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            layout = generate(pool.key, index, true);
+        }
+        // Drop any board a background thread finished after a miss overtook it
+        pool.ready.headMap(index).clear();
+        scheduleFill(pool);
+        return layout;
+    }
+
+    /**
+     * Method: newMap
+     * Purpose: Takes the next board for the players and starts a game on it.
+     *
+     * @param players The players, one per slot (input).
+     * @return A new Map.
+     */
+    public Map newMap(ArrayList<Player> players, int rows, int columns, int victims, int maxDice) {
+        return take(rows, columns, victims, maxDice, players.size()).instantiate(players);
+    }
+
+    /**
+     * Method: printMetrics
+     * Purpose: Prints the pool's counters.
+     *
+     * @param out The stream to print to (input).
+     */
+    public void printMetrics(PrintStream out) {
+        out.printf("Board factory: %d hits, %d misses (%.1f%% hit rate), %d boards generated,"
+                + " %.3f ms per board, %.1f boards/sec%n", getHits(), getMisses(), 100 * getHitRate(),
+                getGenerated(), getGenerated() == 0 ? 0 : generationNanos.sum() / 1e6 / getGenerated(),
+                getBoardsPerSecond());
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getGenerated() { return generated.sum(); }
+    public long getGenerationNanos() { return generationNanos.sum(); }
+
+    /**
+     * Method: getHitRate
+     * @return The fraction of take() calls served from the pool.
+     */
+    public double getHitRate() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    /**
+     * Method: getBoardsPerSecond
+     * @return Boards generated per second of wall time since the factory was created.
+     */
+    public double getBoardsPerSecond() {
+        return getGenerated() / Math.max((System.nanoTime() - startNanos) / 1e9, 1e-9);
+    }
+
+    /**
+     * Method: close
+     * Purpose: Stops the background threads. Boards already taken are unaffected.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    private Pool pool(int rows, int columns, int victims, int maxDice, int players) {
+        Key key = new Key(rows, columns, victims, maxDice, players);
+        return pools.computeIfAbsent(key, Pool::new);
+    }
+
+    // Queues a refill of the pool unless one is already queued or running
+    private void scheduleFill(Pool pool) {
+        if (pool.ready.size() < capacity && !workers.isShutdown() && pool.filling.compareAndSet(false, true)) {
+            try {
+                workers.execute(() -> fill(pool));
+            } catch (RuntimeException e) {
+                pool.filling.set(false); // Rejected after close()
+            }
+        }
+    }
+
+    // Generates boards until the pool is full, continuing from the next index not
+    // yet handed out
+    private void fill(Pool pool) {
+        try {
+            while (pool.ready.size() < capacity && !Thread.currentThread().isInterrupted()) {
+                long index = pool.nextToMake.updateAndGet(next -> Math.max(next, pool.handedOut.get()) + 1) - 1;
+                BoardLayout layout = generate(pool.key, index, false);
+                // Check and put in one compute, so clearing stale boards cannot slip in
+                // between. A take() that claimed the index just before the put missed it
+                // and made its own board, so take this one back out.
+                pool.ready.compute(index, (key, old) -> index >= pool.handedOut.get() ? layout : old);
+                if (index < pool.handedOut.get()) {
+                    pool.ready.remove(index, layout);
+                }
+            }
+        } finally {
+            pool.filling.set(false);
+        }
+        // A take() may have emptied a slot after the loop ended but before the flag cleared
+        scheduleFill(pool);
+    }
+
+    private BoardLayout generate(Key key, long index, boolean onMiss) {
+        Object trace = GameTrace.TRACE.beginBoardGeneration();
+        long start = System.nanoTime();
+        BoardLayout layout = BoardLayout.generate(key.rows, key.columns, key.victims, key.maxDice, key.players,
+                boardSeed(key, index));
+        generationNanos.add(System.nanoTime() - start);
+        generated.increment();
+
+        if (trace != null) {
+            GameTrace.TRACE.endBoardGeneration(trace, key.rows, key.columns, key.players, index, onMiss);
+        }
+        return layout;
+    }
+
+    // A well-mixed seed for board index of key (SplitMix64 finalizer)
+    private long boardSeed(Key key, long index) {
+        long z = seed + key.hashCode() * 0x9E3779B97F4A7C15L + (index + 1) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
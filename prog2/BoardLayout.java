@@ -0,0 +1,173 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Class: BoardLayout
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: A complete starting board that is not tied to any Player objects: a
+ * BoardTopology plus, for every territory, the player slot that owns it and its
+ * dice. Slot i goes to the i-th player when the layout is turned into a Map, so the
+ * expensive work (victims, graph, partition, dice) can be done ahead of time on
+ * another thread. Layouts never change after construction and may be shared.
+ */
+public final class BoardLayout {
+    private final BoardTopology topology; // The shared board
+    private final int maxDice; // Maximum number of dice a territory can hold
+    private final int playerCount; // Number of player slots
+    private final long seed; // Seed the layout was generated from, or 0 if none
+    private final int[] ownerSlot; // Slot owning each territory, -1 for victims
+    private final int[] dice; // Dice on each territory, -1 for victims
+
+    private BoardLayout(BoardTopology topology, int maxDice, int playerCount, long seed, int[] ownerSlot,
+            int[] dice) {
+        this.topology = topology;
+        this.maxDice = maxDice;
+        this.playerCount = playerCount;
+        this.seed = seed;
+        this.ownerSlot = ownerSlot;
+        this.dice = dice;
+    }
+
+    /**
+     * Method: generate
+     * Purpose: Generates a new board whose every random choice comes from the seed.
+     *
+     * @param rows Number of rows in the game board (input).
+     * @param columns Number of columns in the game board (input).
+     * @param victims Number of territories marked as inactive (input).
+     * @param maxDice Maximum number of dice allowed per territory (input).
+     * @param playerCount Number of player slots (input).
+     * @param seed The seed (input).
+     * @return The layout; the same arguments always give the same layout.
+     */
+    public static BoardLayout generate(int rows, int columns, int victims, int maxDice, int playerCount, long seed) {
+        Random random = new Random(seed);
+        BoardTopology topology = Map.generateTopology(rows, columns, victims, random);
+        BoardLayout dealt = deal(topology, playerCount, maxDice, random);
+        return new BoardLayout(topology, maxDice, playerCount, seed, dealt.ownerSlot, dealt.dice);
+    }
+
+    /**
+     * Method: deal
+     * Purpose: Partitions the territories of a topology equally among player slots,
+     * giving leftovers to random slots, then gives each slot one die per territory
+     * plus random extra dice, three per territory of the smallest share in total.
+     *
+     * @param topology The board to deal (input).
+     * @param playerCount Number of player slots (input).
+     * @param maxDice Maximum number of dice allowed per territory (input).
+     * @param random Source of the random choices (input).
+     * @return The dealt layout.
+     */
+    public static BoardLayout deal(BoardTopology topology, int playerCount, int maxDice, Random random) {
+        int size = topology.NUMTERRITORIES;
+        int[] ownerSlot = new int[size];
+        int[] dice = new int[size];
+        ArrayList<Integer> unowned = new ArrayList<>();
+        for (int id = 0; id < size; id++) {
+            ownerSlot[id] = -1;
+            dice[id] = -1;
+            if (!topology.isVictim(id)) {
+                unowned.add(id);
+            }
+        }
+
+        // Assign territories equally among slots, then the leftovers at random
+        int perPlayer = unowned.size() / playerCount;
+        int extra = unowned.size() % playerCount;
+        for (int slot = 0; slot < playerCount; slot++) {
+            for (int i = 0; i < perPlayer; i++) {
+                ownerSlot[unowned.remove(random.nextInt(unowned.size()))] = slot;
+            }
+        }
+        for (int i = 0; i < extra; i++) {
+            ownerSlot[unowned.remove(random.nextInt(unowned.size()))] = random.nextInt(playerCount);
+        }
+
+        // Every slot gets the same total: one die per territory, the rest at random
+        int[][] owned = new int[playerCount][size];
+        int[] counts = new int[playerCount];
+        for (int id = 0; id < size; id++) {
+            if (ownerSlot[id] >= 0) {
+                owned[ownerSlot[id]][counts[ownerSlot[id]]++] = id;
+                dice[id] = 1;
+            }
+        }
+        int minTerritories = Integer.MAX_VALUE;
+        for (int count : counts) {
+            minTerritories = Math.min(minTerritories, count);
+        }
+        DiceEngine engine = new DiceEngine(random.nextLong());
+        for (int slot = 0; slot < playerCount; slot++) {
+            engine.distribute(dice, owned[slot], counts[slot], minTerritories * 3 - counts[slot], maxDice);
+        }
+        return new BoardLayout(topology, maxDice, playerCount, 0, ownerSlot, dice);
+    }
+
+    /**
+     * Method: capture
+     * Purpose: Records the current owners and dice of a game in progress, so the
+     * position can be copied onto a new Map.
+     *
+     * @param map The game (input).
+     * @return A layout whose slot i is map.getPlayers().get(i).
+     */
+    public static BoardLayout capture(Map map) {
+        ArrayList<Player> players = map.getPlayers();
+        int[] ownerSlot = new int[map.NUMTERRITORIES];
+        int[] dice = new int[map.NUMTERRITORIES];
+        for (int id = 0; id < map.NUMTERRITORIES; id++) {
+            Territory territory = map.getTerritoryById(id);
+            ownerSlot[id] = territory.getOwner() == null ? -1 : players.indexOf(territory.getOwner());
+            dice[id] = ownerSlot[id] < 0 ? -1 : territory.getDice();
+        }
+        return new BoardLayout(map.getTopology(), map.MAXDICE, players.size(), 0, ownerSlot, dice);
+    }
+
+    /**
+     * Method: instantiate
+     * Purpose: Starts a game on this board.
+     *
+     * @param players One player per slot, in slot order (input).
+     * @return A new Map with this layout's owners and dice.
+     */
+    public Map instantiate(ArrayList<Player> players) {
+        return new Map(players, this);
+    }
+
+    public BoardTopology getTopology() {
+        return topology;
+    }
+
+    public int getMaxDice() {
+        return maxDice;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Method: getOwnerSlot
+     * @param id The territory ID (input).
+     * @return The slot owning the territory, or -1 for a victim.
+     */
+    public int getOwnerSlot(int id) {
+        return ownerSlot[id];
+    }
+
+    /**
+     * Method: getDice
+     * @param id The territory ID (input).
+     * @return The dice on the territory, or -1 for a victim.
+     */
+    public int getDice(int id) {
+        return dice[id];
+    }
+}
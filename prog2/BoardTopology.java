@@ -0,0 +1,216 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Class: BoardTopology
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: The fixed part of a game board, frozen so that many games can share it:
+ * the dimensions, which territories are victims, the territory graph and the grid
+ * neighbors. The graph is stored in compressed sparse row form (an offsets array
+ * into one array of neighbor IDs), so it takes O(V + E) memory instead of the
+ * O(V^2) adjacency matrix of Graph. Nothing changes after construction, so a
+ * topology is safe to share between threads without locking. Each Map built on a
+ * topology keeps only its own owners and dice.
+ */
+public final class BoardTopology {
+    public final int ROWS; // Number of rows in the board
+    public final int COLUMNS; // Number of columns in the board
+    public final int NUMTERRITORIES; // ROWS * COLUMNS
+    public final int VICTIMS; // Number of inactive territories
+
+    private final boolean[] victim; // victim[id] is true for inactive territories
+    private final int[] offsets; // Graph neighbors of id are targets[offsets[id]..offsets[id + 1] - 1]
+    private final int[] targets; // Graph neighbor IDs, sorted within each territory
+    private final int[][] gridAdjacency; // Non-victim up/down/left/right neighbors of each ID
+    private Graph graph; // Frozen Graph of the same edges, built on the first getGraph()
+
+    /**
+     * Constructor: Freezes a board layout.
+     *
+     * @param rows The number of rows (input).
+     * @param columns The number of columns (input).
+     * @param victims The IDs of the inactive territories (input).
+     * @param graph The territory graph, with rows * columns vertices (input).
+     * Preconditions: graph has rows * columns vertices and every victim is a valid ID.
+     * Postconditions: Later changes to victims or graph do not affect this topology.
+     */
+    public BoardTopology(int rows, int columns, Collection<Integer> victims, Graph graph) {
+        ROWS = rows;
+        COLUMNS = columns;
+        NUMTERRITORIES = rows * columns;
+        victim = new boolean[NUMTERRITORIES];
+        for (int id : victims) {
+            victim[id] = true;
+        }
+        int count = 0;
+        for (boolean inactive : victim) {
+            if (inactive) {
+                count++;
+            }
+        }
+        VICTIMS = count;
+
+        offsets = new int[NUMTERRITORIES + 1];
+        for (int id = 0; id < NUMTERRITORIES; id++) {
+            offsets[id + 1] = offsets[id] + graph.getAdjacentArray(id).length;
+        }
+        targets = new int[offsets[NUMTERRITORIES]];
+        for (int id = 0; id < NUMTERRITORIES; id++) {
+            int[] adjacent = graph.getAdjacentArray(id);
+            System.arraycopy(adjacent, 0, targets, offsets[id], adjacent.length);
+        }
+
+        gridAdjacency = new int[NUMTERRITORIES][];
+        int[] buffer = new int[4];
+        for (int id = 0; id < NUMTERRITORIES; id++) {
+            int found = 0;
+            if (!victim[id]) {
+                int row = id / COLUMNS;
+                int col = id % COLUMNS;
+                if (row > 0 && !victim[id - COLUMNS]) buffer[found++] = id - COLUMNS;
+                if (row < ROWS - 1 && !victim[id + COLUMNS]) buffer[found++] = id + COLUMNS;
+                if (col > 0 && !victim[id - 1]) buffer[found++] = id - 1;
+                if (col < COLUMNS - 1 && !victim[id + 1]) buffer[found++] = id + 1;
+            }
+            gridAdjacency[id] = Arrays.copyOf(buffer, found);
+        }
+    }
+
+    /**
+     * Method: freeze
+     * Purpose: Freezes the layout of an existing map so new games can reuse it.
+     *
+     * @param map The map whose dimensions, victims and graph are copied (input).
+     * @return The map's topology.
+     */
+    public static BoardTopology freeze(Map map) {
+        return map.getTopology();
+    }
+
+    /**
+     * Method: isVictim
+     * Purpose: Tells whether a territory is inactive.
+     *
+     * @param id The territory ID (input).
+     * @return True if the territory is a victim.
+     */
+    public boolean isVictim(int id) {
+        return victim[id];
+    }
+
+    /**
+     * Method: getVictims
+     * Purpose: Lists the inactive territories.
+     *
+     * @return A new list of victim IDs in increasing order.
+     */
+    public ArrayList<Integer> getVictims() {
+        ArrayList<Integer> victims = new ArrayList<>(VICTIMS);
+        for (int id = 0; id < NUMTERRITORIES; id++) {
+            if (victim[id]) {
+                victims.add(id);
+            }
+        }
+        return victims;
+    }
+
+    /**
+     * Method: degree
+     * Purpose: Counts the graph neighbors of a territory.
+     *
+     * @param id The territory ID (input).
+     * @return The number of graph edges at id.
+     */
+    public int degree(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    /**
+     * Method: neighbor
+     * Purpose: Gets one graph neighbor of a territory without copying.
+     *
+     * @param id The territory ID (input).
+     * @param index Which neighbor, 0 through degree(id) - 1 (input).
+     * @return The neighbor's ID.
+     */
+    public int neighbor(int id, int index) {
+        return targets[offsets[id] + index];
+    }
+
+    /**
+     * Method: isEdge
+     * Purpose: Checks for a graph edge by binary search of the sorted neighbor list.
+     *
+     * @param source The first territory ID (input).
+     * @param destination The second territory ID (input).
+     * @return True if the graph has the edge.
+     */
+    public boolean isEdge(int source, int destination) {
+        return Arrays.binarySearch(targets, offsets[source], offsets[source + 1], destination) >= 0;
+    }
+
+    /**
+     * Method: getGridNeighbors
+     * Purpose: Lists the non-victim territories up, down, left and right of a territory.
+     *
+     * @param id The territory ID (input).
+     * @return A new list of neighbor IDs.
+     */
+    public List<Integer> getGridNeighbors(int id) {
+        List<Integer> neighbors = new ArrayList<>(4);
+        for (int neighbor : gridAdjacency[id]) {
+            neighbors.add(neighbor);
+        }
+        return neighbors;
+    }
+
+    /**
+     * Method: gridAdjacency
+     * Purpose: Gives Map (for Graph.findCuts) and strategies the shared grid
+     * adjacency. Public so that strategies loaded by a CachingStrategyLoader, which
+     * are in a different runtime package, can use it.
+     *
+     * @return The shared arrays. Callers must not modify them.
+     */
+    public int[][] gridAdjacency() {
+        return gridAdjacency;
+    }
+
+    /**
+     * Method: getGraph
+     * Purpose: Returns this topology's edges as a Graph, for code that still needs
+     * one. The Graph is built once and shared by every map on this topology, so it
+     * is frozen.
+     *
+     * @return The shared Graph; use toGraph for one that can be changed.
+     */
+    public synchronized Graph getGraph() {
+        if (graph == null) {
+            graph = toGraph().freeze();
+        }
+        return graph;
+    }
+
+    /**
+     * Method: toGraph
+     * Purpose: Builds a new mutable Graph with this topology's edges, for code that
+     * still needs a Graph.
+     *
+     * @return A new Graph with NUMTERRITORIES vertices.
+     */
+    public Graph toGraph() {
+        Graph graph = new Graph(NUMTERRITORIES);
+        for (int id = 0; id < NUMTERRITORIES; id++) {
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                if (id < targets[i]) {
+                    graph.addEdge(id, targets[i]);
+                }
+            }
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,444 @@
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.Permissions;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Class: CachingStrategyLoader
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: A parallel-capable replacement for StrategyLoader. Class bytes are read
+ * from a directory or a jar at most once and kept in a cache keyed by class name,
+ * and each class is defined at most once per loader. Strategy classes are defined in
+ * a protection domain that grants no permissions, so they run sandboxed whenever a
+ * security policy is in force. Load counts and timings are kept for reporting.
+ *
+ * Strategy classes, and the classes nested in them, are loaded child-first: a
+ * strategy found in the source is defined by this loader even when the same class
+ * is on the class path, so the cache and the sandbox always apply to it. Every
+ * other class (Strategy, Map, Player, ...) comes from the parent, so strategies and
+ * the engine share one copy of the game's types. A jar source is opened once and
+ * kept open until close().
+ */
+public class CachingStrategyLoader extends ClassLoader implements Closeable {
+    static {
+        registerAsParallelCapable();
+    }
+
+    private static CachingStrategyLoader shared; // Loader for the working directory
+
+    private final Path source; // Directory or jar holding the strategy classes
+    private final boolean isJar; // True if source is a jar file
+    private final ProtectionDomain sandbox; // Domain with no permissions
+    private final ConcurrentHashMap<String, byte[]> bytecode; // Class name -> class bytes
+    private final ConcurrentHashMap<String, Constructor<? extends Strategy>> constructors; // Strategy name -> no-arg constructor
+    private final Set<String> strategyNames = ConcurrentHashMap.newKeySet(); // Classes loaded child-first
+    private JarFile jar; // The open source jar, or null until first needed
+
+    // Class file access flags that decide whether a class can be a playable strategy
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int CONCRETE_MASK = ACC_PUBLIC | 0x0200 | 0x0400; // Public, interface, abstract
+
+    // The parts of a class file header needed to recognize a strategy
+    private static final class ClassHeader {
+        int flags; // Access flags
+        final List<String> supertypes = new ArrayList<>(); // Superclass, then interfaces
+    }
+
+    // Load metrics
+    private final LongAdder classesDefined = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    /**
+     * Constructor: Creates a loader that reads strategy classes from the working
+     * directory, the same place StrategyLoader looks.
+     */
+    public CachingStrategyLoader() {
+        this(Paths.get(""));
+    }
+
+    /**
+     * Constructor: Creates a loader that reads strategy classes from a directory or jar.
+     *
+     * @param source The directory or jar file containing the .class files.
+     * Preconditions: source is not null.
+     * Postconditions: The loader is ready; nothing has been read yet.
+     */
+    public CachingStrategyLoader(Path source) {
+        super(CachingStrategyLoader.class.getClassLoader());
+        this.source = source.toAbsolutePath();
+        this.isJar = Files.isRegularFile(this.source) && this.source.toString().endsWith(".jar");
+        this.bytecode = new ConcurrentHashMap<>();
+        this.constructors = new ConcurrentHashMap<>();
+
+        CodeSource codeSource;
+        try {
+            codeSource = new CodeSource(this.source.toUri().toURL(), (Certificate[]) null);
+        } catch (MalformedURLException e) {
+            codeSource = null;
+        }
+        this.sandbox = new ProtectionDomain(codeSource, new Permissions());
+    }
+
+    /**
+     * Method: shared
+     * Purpose: Returns the single loader for the working directory, so that all players
+     * in one JVM share its cached classes.
+     *
+     * @return The shared loader.
+     */
+    public static synchronized CachingStrategyLoader shared() {
+        if (shared == null) {
+            shared = new CachingStrategyLoader();
+        }
+        return shared;
+    }
+
+    /**
+     * Method: newStrategy
+     * Purpose: Creates a new instance of the named strategy class. The class and its
+     * constructor are looked up only on the first request for that name.
+     *
+     * @param name The binary name of the strategy class (input).
+     * @return A new strategy instance.
+     * @throws ClassNotFoundException if the class cannot be found or is not a usable Strategy.
+     */
+    public Strategy newStrategy(String name) throws ClassNotFoundException {
+        Constructor<? extends Strategy> constructor = constructors.get(name);
+        if (constructor == null) {
+            boolean childFirst = isStrategyClass(name) && strategyNames.add(name);
+            try {
+                constructor = findConstructor(name);
+            } catch (ClassNotFoundException | LinkageError e) {
+                if (childFirst) {
+                    strategyNames.remove(name); // Not usable, so it must not shadow the parent's class
+                }
+                throw e;
+            }
+            constructors.putIfAbsent(name, constructor);
+        }
+        try {
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new ClassNotFoundException("Cannot instantiate strategy " + name, e);
+        }
+    }
+
+    /**
+     * Method: loadAll
+     * Purpose: Reads every class in the source directory or jar in one scan, then
+     * defines them and reports which ones are usable strategies.
+     *
+     * @return Names of the concrete, public Strategy classes with no-arg constructors.
+     * @throws IOException if the source cannot be read.
+     */
+    public List<String> loadAll() throws IOException {
+        List<String> names = new ArrayList<>();
+        long start = System.nanoTime();
+
+        if (isJar) {
+            JarFile jar = jar();
+            synchronized (jar) {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry entry = entries.nextElement();
+                    String entryName = entry.getName();
+                    if (!entry.isDirectory() && entryName.endsWith(".class")) {
+                        String className = toClassName(entryName);
+                        try (InputStream in = jar.getInputStream(entry)) {
+                            cacheBytes(className, in.readAllBytes());
+                        }
+                        names.add(className);
+                    }
+                }
+            }
+        } else {
+            File[] files = source.toFile().listFiles((dir, fileName) -> fileName.endsWith(".class"));
+            if (files == null) {
+                throw new IOException("Not a directory or jar: " + source);
+            }
+            for (File file : files) {
+                String className = toClassName(file.getName());
+                cacheBytes(className, Files.readAllBytes(file.toPath()));
+                names.add(className);
+            }
+        }
+        loadNanos.add(System.nanoTime() - start);
+
+        List<String> strategies = new ArrayList<>();
+        for (String className : names) {
+            if (!isStrategyClass(className)) {
+                continue; // Left to the parent, so it is never defined twice
+            }
+            try {
+                strategyNames.add(className);
+                findConstructor(className);
+                strategies.add(className);
+            } catch (ClassNotFoundException | LinkageError e) {
+                strategyNames.remove(className); // Not a usable strategy; skip it
+            }
+        }
+        return strategies;
+    }
+
+    /**
+     * Method: loadClass
+     * Purpose: Loads strategy classes and their nested classes child-first, falling
+     * back to the parent if the source has no class file for them, and every other
+     * class parent-first.
+     *
+     * @param name The binary name of the class (input).
+     * @param resolve True to link the class (input).
+     * @return The class.
+     * @throws ClassNotFoundException if neither this loader nor the parent finds it.
+     */
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!isChildFirst(name)) {
+            return super.loadClass(name, resolve);
+        }
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) {
+                try {
+                    loaded = findClass(name);
+                } catch (ClassNotFoundException e) {
+                    loaded = getParent().loadClass(name);
+                }
+            }
+            if (resolve) {
+                resolveClass(loaded);
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * Method: close
+     * Purpose: Closes the source jar, if one is open. Classes already defined keep working.
+     *
+     * @throws IOException if the jar cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (jar != null) {
+            jar.close();
+            jar = null;
+        }
+    }
+
+    /**
+     * Method: findClass
+     * Purpose: Defines a class from cached bytes, reading them from the source only if
+     * they are not cached yet. Called by loadClass for strategy classes, and after
+     * parent delegation fails for any other class.
+     *
+     * @param name The binary name of the class (input).
+     * @return The defined class.
+     * @throws ClassNotFoundException if no class file exists for the name.
+     */
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        long start = System.nanoTime();
+        byte[] bytes = bytecode.get(name);
+        if (bytes != null) {
+            cacheHits.increment();
+        } else {
+            bytes = readClass(name);
+        }
+        Class<?> result = defineClass(name, bytes, 0, bytes.length, sandbox);
+        classesDefined.increment();
+        loadNanos.add(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Method: printMetrics
+     * Purpose: Prints the loader's counters.
+     *
+     * @param out The stream to print to (input).
+     */
+    public void printMetrics(PrintStream out) {
+        out.printf("Strategy loader [%s]: %d classes defined, %d cache hits, %d bytes read, %.3f ms loading%n",
+                source, classesDefined.sum(), cacheHits.sum(), bytesRead.sum(), loadNanos.sum() / 1e6);
+    }
+
+    public long getClassesDefined() { return classesDefined.sum(); }
+    public long getCacheHits() { return cacheHits.sum(); }
+    public long getBytesRead() { return bytesRead.sum(); }
+    public long getLoadNanos() { return loadNanos.sum(); }
+
+    // Looks up the no-arg constructor of a concrete, public Strategy class
+    private Constructor<? extends Strategy> findConstructor(String name) throws ClassNotFoundException {
+        Class<?> loaded = loadClass(name);
+        if (!Strategy.class.isAssignableFrom(loaded)
+                || Modifier.isAbstract(loaded.getModifiers())
+                || !Modifier.isPublic(loaded.getModifiers())) {
+            throw new ClassNotFoundException(name + " is not a concrete public Strategy");
+        }
+        try {
+            return loaded.asSubclass(Strategy.class).getConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new ClassNotFoundException(name + " has no public no-arg constructor", e);
+        }
+    }
+
+    // Reads the bytes of a class from the source and caches them
+    private byte[] readClass(String name) throws ClassNotFoundException {
+        String fileName = name.replace('.', '/') + ".class";
+        try {
+            byte[] bytes;
+            if (isJar) {
+                JarFile jar = jar();
+                synchronized (jar) {
+                    JarEntry entry = jar.getJarEntry(fileName);
+                    if (entry == null) {
+                        throw new ClassNotFoundException(name);
+                    }
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        bytes = in.readAllBytes();
+                    }
+                }
+            } else {
+                bytes = Files.readAllBytes(source.resolve(fileName));
+            }
+            return cacheBytes(name, bytes);
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+
+    // Adds class bytes to the cache, keeping the first copy if two threads race
+    private byte[] cacheBytes(String name, byte[] bytes) {
+        byte[] previous = bytecode.putIfAbsent(name, bytes);
+        if (previous != null) {
+            return previous;
+        }
+        bytesRead.add(bytes.length);
+        return bytes;
+    }
+
+    // Opens the source jar the first time it is needed
+    private synchronized JarFile jar() throws IOException {
+        if (jar == null) {
+            jar = new JarFile(source.toFile());
+        }
+        return jar;
+    }
+
+    // True for a requested strategy and for the classes nested in one
+    private boolean isChildFirst(String name) {
+        if (strategyNames.contains(name)) {
+            return true;
+        }
+        int dollar = name.indexOf('$');
+        return dollar > 0 && strategyNames.contains(name.substring(0, dollar));
+    }
+
+    // True if the source has a class file for a concrete, public class implementing
+    // Strategy; only such classes are loaded child-first
+    private boolean isStrategyClass(String name) {
+        try {
+            byte[] bytes = bytecode.get(name);
+            if (bytes == null) {
+                bytes = readClass(name);
+            }
+            return (header(bytes).flags & CONCRETE_MASK) == ACC_PUBLIC && isStrategy(name);
+        } catch (ClassNotFoundException | IOException e) {
+            return false; // No readable class file in the source
+        }
+    }
+
+    // Tells from its cached class file whether a class implements Strategy, directly
+    // or through its superclasses and interfaces, without defining it
+    private boolean isStrategy(String name) {
+        if (name.equals(Strategy.class.getName())) {
+            return true;
+        }
+        byte[] bytes = bytecode.get(name);
+        if (bytes == null) {
+            try {
+                return Strategy.class.isAssignableFrom(getParent().loadClass(name));
+            } catch (ClassNotFoundException | LinkageError e) {
+                return false;
+            }
+        }
+        try {
+            for (String supertype : header(bytes).supertypes) {
+                if (!supertype.equals("java.lang.Object") && isStrategy(supertype)) {
+                    return true;
+                }
+            }
+        } catch (IOException e) {
+            return false; // Not a readable class file
+        }
+        return false;
+    }
+
+    // Reads the access flags, superclass and interface names from a class file
+    private static ClassHeader header(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != 0xCAFEBABE) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // Minor version
+        in.readUnsignedShort(); // Major version
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        int[] classNameIndex = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: utf8[i] = in.readUTF(); break; // Utf8
+                case 7: classNameIndex[i] = in.readUnsignedShort(); break; // Class
+                case 8: case 16: case 19: case 20: in.skipBytes(2); break; // String, MethodType, Module, Package
+                case 15: in.skipBytes(3); break; // MethodHandle
+                case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18: in.skipBytes(4); break;
+                case 5: case 6: in.skipBytes(8); i++; break; // Long and Double take two slots
+                default: throw new IOException("Bad constant pool tag " + tag);
+            }
+        }
+        ClassHeader header = new ClassHeader();
+        header.flags = in.readUnsignedShort();
+        in.readUnsignedShort(); // This class
+        List<String> names = header.supertypes;
+        int superclass = in.readUnsignedShort();
+        if (superclass != 0) {
+            names.add(utf8[classNameIndex[superclass]].replace('/', '.'));
+        }
+        int interfaces = in.readUnsignedShort();
+        for (int i = 0; i < interfaces; i++) {
+            names.add(utf8[classNameIndex[in.readUnsignedShort()]].replace('/', '.'));
+        }
+        return header;
+    }
+
+    // Converts "pkg/Name.class" to "pkg.Name"
+    private static String toClassName(String fileName) {
+        return fileName.substring(0, fileName.length() - ".class".length()).replace('/', '.');
+    }
+}
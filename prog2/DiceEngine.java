@@ -0,0 +1,168 @@
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Class: DiceEngine
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: Batched dice for the game engine. Rolls are drawn from a SplittableRandom
+ * as one uniform number in [0, 6^n) for up to 24 dice at a time, and the sum of its
+ * base-6 digits is read from a table, so each roll costs one generator call instead
+ * of one per die. Award dice are placed in one pass over the eligible territories.
+ * Both give exactly the same distributions as rolling and placing one die at a time.
+ */
+public class DiceEngine {
+    private static final int DICE_PER_DRAW = 24; // 6^24 < 2^63
+    private static final int TABLE_DICE = 6; // Dice covered by one table lookup
+    private static final int TABLE_SIZE = 46656; // 6^TABLE_DICE
+    private static final long[] POWERS = new long[DICE_PER_DRAW + 1]; // 6^k
+    private static final byte[] DIGIT_SUMS = new byte[TABLE_SIZE]; // Sum of base-6 digits
+
+    static {
+        POWERS[0] = 1;
+        for (int k = 1; k <= DICE_PER_DRAW; k++) {
+            POWERS[k] = POWERS[k - 1] * 6;
+        }
+        for (int i = 1; i < TABLE_SIZE; i++) {
+            DIGIT_SUMS[i] = (byte) (DIGIT_SUMS[i / 6] + i % 6);
+        }
+    }
+
+    private final SplittableRandom random; // Source of randomness
+    private int[] eligible = new int[16]; // Scratch: positions of territories that can take dice
+
+    /**
+     * Constructor: Creates an engine with an unpredictable seed.
+     */
+    public DiceEngine() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Constructor: Creates an engine whose rolls are determined by the seed.
+     *
+     * @param seed The seed.
+     */
+    public DiceEngine(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private DiceEngine(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Method: split
+     * Purpose: Creates an independent engine, e.g. for another thread or game.
+     *
+     * @return A new engine whose rolls do not overlap this one's.
+     */
+    public DiceEngine split() {
+        return new DiceEngine(random.split());
+    }
+
+    /**
+     * Method: rollSum
+     * Purpose: Rolls the given number of six-sided dice.
+     *
+     * @param dice The number of dice to roll (input).
+     * @return The sum of the dice.
+     */
+    public int rollSum(int dice) {
+        int sum = dice;
+        while (dice > 0) {
+            int batch = Math.min(dice, DICE_PER_DRAW);
+            long draw = random.nextLong(POWERS[batch]);
+            while (draw != 0) {
+                sum += DIGIT_SUMS[(int) (draw % TABLE_SIZE)];
+                draw /= TABLE_SIZE;
+            }
+            dice -= batch;
+        }
+        return sum;
+    }
+
+    /**
+     * Method: nextInt
+     * @param bound The exclusive upper bound (input).
+     * @return A uniform random number in [0, bound).
+     */
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    /**
+     * Method: distribute
+     * Purpose: Adds dice one at a time to territories picked uniformly from those with
+     * fewer than maxDice, stopping when the dice run out or every territory is full.
+     *
+     * @param territories The territories that may receive dice (input/output).
+     * @param count The number of dice to add (input).
+     * @param maxDice The most dice a territory may hold (input).
+     * @param addedById If not null, incremented at each territory's id for every die it receives (output).
+     * @return The number of dice actually added.
+     */
+    public int distribute(List<Territory> territories, int count, int maxDice, int[] addedById) {
+        int size = 0;
+        if (eligible.length < territories.size()) {
+            eligible = new int[territories.size()];
+        }
+        for (int i = 0; i < territories.size(); i++) {
+            if (territories.get(i).getDice() < maxDice) {
+                eligible[size++] = i;
+            }
+        }
+
+        int added = 0;
+        while (added < count && size > 0) {
+            int pick = random.nextInt(size);
+            Territory territory = territories.get(eligible[pick]);
+            int dice = territory.getDice() + 1;
+            territory.setDice(dice);
+            if (addedById != null) {
+                addedById[territory.getIdNum()]++;
+            }
+            if (dice >= maxDice) {
+                eligible[pick] = eligible[--size];
+            }
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Method: distribute
+     * Purpose: Same as the method above for dice counts kept in an array by territory
+     * ID, for boards dealt without Territory objects.
+     *
+     * @param diceById The dice on each territory, by ID (input/output).
+     * @param ids The IDs of the territories that may receive dice (input).
+     * @param idCount The number of entries of ids to use (input).
+     * @param count The number of dice to add (input).
+     * @param maxDice The most dice a territory may hold (input).
+     * @return The number of dice actually added.
+     */
+    public int distribute(int[] diceById, int[] ids, int idCount, int count, int maxDice) {
+        int size = 0;
+        if (eligible.length < idCount) {
+            eligible = new int[idCount];
+        }
+        for (int i = 0; i < idCount; i++) {
+            if (diceById[ids[i]] < maxDice) {
+                eligible[size++] = ids[i];
+            }
+        }
+
+        int added = 0;
+        while (added < count && size > 0) {
+            int pick = random.nextInt(size);
+            int id = eligible[pick];
+            if (++diceById[id] >= maxDice) {
+                eligible[pick] = eligible[--size];
+            }
+            added++;
+        }
+        return added;
+    }
+}
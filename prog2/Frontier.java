@@ -0,0 +1,112 @@
+/**
+ * Class: Frontier
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: The territories of one player that touch at least one enemy territory,
+ * kept up to date by Map as territories change owner. This is a live, read-only
+ * view over primitive arrays: size() and idAt(i) walk the frontier with no
+ * allocation, and contains(id) is O(1). Removing a territory moves the last one
+ * into its place, so the order changes as the game goes on; copy the IDs with
+ * copyIds before attacking if the loop must see a fixed set.
+ */
+public final class Frontier {
+    private final Player owner; // Whose frontier this is
+    private final int[] position; // Index of each territory ID in ids, shared by every frontier of the map
+    private int[] ids = new int[8]; // Frontier territory IDs, ids[0..size - 1]
+    private int size; // Number of frontier territories
+    private int enemyEdges; // Edges from frontier territories to enemy territories
+
+    /**
+     * Constructor: Creates an empty frontier.
+     *
+     * @param owner The player (input).
+     * @param position The map's shared position array, -1 for territories on no frontier (input).
+     */
+    Frontier(Player owner, int[] position) {
+        this.owner = owner;
+        this.position = position;
+    }
+
+    public Player getOwner() {
+        return owner;
+    }
+
+    /**
+     * Method: size
+     * @return The number of the owner's territories that touch an enemy.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Method: idAt
+     * @param index From 0 to size() - 1 (input).
+     * @return The ID of the index-th frontier territory.
+     */
+    public int idAt(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of frontier of size " + size);
+        }
+        return ids[index];
+    }
+
+    /**
+     * Method: contains
+     * @param id A territory ID (input).
+     * @return True if the territory is on this frontier.
+     */
+    public boolean contains(int id) {
+        int index = position[id];
+        return index >= 0 && index < size && ids[index] == id;
+    }
+
+    /**
+     * Method: getEnemyEdgeCount
+     * @return The number of (own territory, adjacent enemy territory) pairs.
+     */
+    public int getEnemyEdgeCount() {
+        return enemyEdges;
+    }
+
+    /**
+     * Method: copyIds
+     * Purpose: Copies the frontier into an array the caller owns.
+     *
+     * @param destination An array of at least size() elements (output).
+     * @return The number of IDs copied.
+     */
+    public int copyIds(int[] destination) {
+        System.arraycopy(ids, 0, destination, 0, size);
+        return size;
+    }
+
+    // Adds a territory that is not yet on this frontier
+    void add(int id) {
+        if (size == ids.length) {
+            int[] grown = new int[size * 2];
+            System.arraycopy(ids, 0, grown, 0, size);
+            ids = grown;
+        }
+        position[id] = size;
+        ids[size++] = id;
+    }
+
+    // Removes a territory on this frontier by moving the last one into its place
+    void remove(int id) {
+        int index = position[id];
+        int last = ids[--size];
+        ids[index] = last;
+        position[last] = index;
+        position[id] = -1;
+    }
+
+    void addEnemyEdges(int delta) {
+        enemyEdges += delta;
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Class: FrontierStrategy
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: A greedy TurnPlanner. Each attack of the turn goes from a territory with
+ * more dice than an adjacent enemy territory, choosing the largest difference (the
+ * lowest IDs on ties), and the turn ends when no such attack is left. A territory
+ * already holding the most dice allowed also attacks an equal neighbor, since it
+ * cannot grow any further; without that, two full boards would stare at each other
+ * until the turn limit.
+ *
+ * The candidates are read once per turn from the player's Frontier into a heap. A
+ * territory's margin can only shrink during its owner's turn, so a candidate is
+ * checked against the board when it reaches the top of the heap and pushed back
+ * with its new margin if it changed. attackResolved adds each captured territory,
+ * so an attack costs O(log n) plus the neighbors it touches, not a frontier walk.
+ */
+public class FrontierStrategy extends PlanningStrategy {
+    private Turn turn; // The turn being planned, told about outcomes by attackResolved
+
+    /**
+     * Method: planTurn
+     * Purpose: Plans the turn lazily from the player's frontier.
+     *
+     * @param board The current board (input).
+     * @return An iterator that picks each attack when it is asked for.
+     */
+    public Iterator<Attack> planTurn(Map board) {
+        turn = new Turn(board, player);
+        return turn;
+    }
+
+    /**
+     * Method: attackResolved
+     * Purpose: Makes a captured territory a candidate for the rest of the turn.
+     *
+     * @param attack The attack just made (input).
+     * @param won True if the defender was captured (input).
+     */
+    @Override
+    public void attackResolved(Attack attack, boolean won) {
+        if (turn != null && won) {
+            turn.offer(attack.getDefender().getIdNum());
+        }
+    }
+
+    // The candidates of one turn, in a binary heap of keys from key()
+    // Turn is given the player because, when FrontierStrategy is loaded by a
+    // CachingStrategyLoader, a nested class may not read PlanningStrategy's field.
+    private final class Turn implements Iterator<Attack> {
+        private final Map board;
+        private final Player player;
+        private final int[][] adjacency;
+        private long[] heap = new long[16];
+        private int size;
+        private Attack next; // The attack chosen for the next call to next()
+        private boolean chosen; // True if next is up to date
+
+        Turn(Map board, Player player) {
+            this.board = board;
+            this.player = player;
+            this.adjacency = board.getTopology().gridAdjacency();
+            Frontier frontier = board.getFrontier(player);
+            for (int i = 0; i < frontier.size(); i++) {
+                offer(frontier.idAt(i));
+            }
+        }
+
+        public boolean hasNext() {
+            if (!chosen) {
+                next = choose();
+                chosen = true;
+            }
+            return next != null;
+        }
+
+        public Attack next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            chosen = false;
+            return next;
+        }
+
+        // Pushes a territory with its current best attack, if it has one
+        void offer(int from) {
+            long key = key(from);
+            if (key >= 0) {
+                push(key);
+            }
+        }
+
+        // Pops candidates until one still has the margin it was pushed with
+        private Attack choose() {
+            while (size > 0) {
+                long top = pop();
+                int from = (int) (top & 0xFFFFFFFFL);
+                long current = key(from);
+                if (current == top) {
+                    return new Attack(board.getTerritoryById(from), board.getTerritoryById(target(from)));
+                }
+                if (current >= 0) {
+                    push(current); // Its margin shrank; try it again later
+                }
+            }
+            return null;
+        }
+
+        // Orders candidates by largest margin, then lowest ID; -1 if from cannot attack
+        private long key(int from) {
+            Territory attacker = board.getTerritoryById(from);
+            int dice = attacker.getDice();
+            if (attacker.getOwner() != player || dice < 2) {
+                return -1;
+            }
+            int to = target(from);
+            if (to < 0) {
+                return -1;
+            }
+            int margin = dice - board.getTerritoryById(to).getDice();
+            if (margin < 0 || margin == 0 && dice < board.MAXDICE) {
+                return -1;
+            }
+            return (long) (board.MAXDICE - margin) << 32 | from;
+        }
+
+        // The enemy neighbor with the fewest dice (the lowest ID on ties), or -1
+        private int target(int from) {
+            int best = -1;
+            int bestDice = Integer.MAX_VALUE;
+            for (int to : adjacency[from]) {
+                Territory defender = board.getTerritoryById(to);
+                if (defender.getOwner() != player && defender.getDice() < bestDice) {
+                    best = to;
+                    bestDice = defender.getDice();
+                }
+            }
+            return best;
+        }
+
+        private void push(long key) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0 && heap[(i - 1) / 2] > key) {
+                heap[i] = heap[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            heap[i] = key;
+        }
+
+        private long pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[child] >= last) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+}
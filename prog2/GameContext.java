@@ -0,0 +1,262 @@
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class: GameContext
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: Ids, colors and win counts of players, scoped to one game or one
+ * tournament instead of to the whole JVM. Player numbers its instances with the
+ * global static playerQty, which concurrent games race on, and keeps its win count
+ * in an unsynchronized field. A context gives each registered player a dense id
+ * 0, 1, 2, ... of its own, a color from a fixed palette by that id, and a
+ * thread-safe win counter, so thousands of games can run on parallel threads in
+ * one process. A player may be registered in several contexts, e.g. its game and
+ * its tournament.
+ *
+ * Player is supplied only as a class file, so players should be created through
+ * createPlayer or newPlayer, which serialize the constructor's update of playerQty.
+ */
+public class GameContext {
+    private static final Color[] PALETTE = { Color.RED, Color.BLUE, Color.GREEN.darker(), Color.ORANGE,
+            Color.MAGENTA, Color.CYAN.darker(), Color.PINK, Color.YELLOW.darker() };
+
+    private final String name; // For messages
+    private final List<Player> players = Collections.synchronizedList(new ArrayList<>()); // By id
+    private final ConcurrentHashMap<Player, Entry> entries = new ConcurrentHashMap<>();
+
+    // What a context knows about one registered player
+    private static final class Entry {
+        final int id;
+        final Color color;
+        final AtomicInteger wins = new AtomicInteger();
+
+        Entry(int id, Color color) {
+            this.id = id;
+            this.color = color;
+        }
+    }
+
+    /**
+     * Constructor: Creates an empty context.
+     *
+     * @param name A name for the game or tournament (input).
+     */
+    public GameContext(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Method: createPlayer
+     * Purpose: Constructs a Player without racing other threads on Player.playerQty.
+     *
+     * @param name The player's name (input).
+     * @param color The player's color (input).
+     * @return The new player, not registered in any context.
+     */
+    public static Player createPlayer(String name, Color color) {
+        synchronized (Player.class) {
+            return new Player(name, color);
+        }
+    }
+
+    /**
+     * Method: newPlayer
+     * Purpose: Creates a player and registers it, colored by its id in this context.
+     *
+     * @param name The player's name (input).
+     * @return The registered player.
+     */
+    public Player newPlayer(String name) {
+        synchronized (this) {
+            Color color = PALETTE[players.size() % PALETTE.length];
+            Player player = createPlayer(name, color);
+            register(player);
+            return player;
+        }
+    }
+
+    /**
+     * Method: register
+     * Purpose: Adds a player to this context, giving it the next id.
+     *
+     * @param player The player (input).
+     * @return The player's id in this context; the existing one if already registered.
+     */
+    public synchronized int register(Player player) {
+        Entry entry = entries.get(player);
+        if (entry == null) {
+            int id = players.size();
+            entry = new Entry(id, PALETTE[id % PALETTE.length]);
+            players.add(player);
+            entries.put(player, entry);
+        }
+        return entry.id;
+    }
+
+    /**
+     * Method: getId
+     * @param player A registered player (input).
+     * @return The player's id in this context, from 0 to size() - 1.
+     * @throws IllegalArgumentException if the player is not registered.
+     */
+    public int getId(Player player) {
+        return entry(player).id;
+    }
+
+    /**
+     * Method: getColor
+     * @param player A registered player (input).
+     * @return The palette color for the player's id in this context.
+     */
+    public Color getColor(Player player) {
+        return entry(player).color;
+    }
+
+    /**
+     * Method: getWins
+     * @param player A registered player (input).
+     * @return The wins recorded for the player in this context.
+     */
+    public int getWins(Player player) {
+        return entry(player).wins.get();
+    }
+
+    /**
+     * Method: recordWin
+     * Purpose: Counts a win for the player; safe to call from any thread.
+     *
+     * @param player A registered player (input).
+     * @return The player's new win count in this context.
+     */
+    public int recordWin(Player player) {
+        return entry(player).wins.incrementAndGet();
+    }
+
+    /**
+     * Method: getPlayer
+     * @param id An id from 0 to size() - 1 (input).
+     * @return The player with that id.
+     */
+    public Player getPlayer(int id) {
+        return players.get(id);
+    }
+
+    /**
+     * Method: getPlayers
+     * @return A new list of the registered players in id order.
+     */
+    public ArrayList<Player> getPlayers() {
+        synchronized (players) {
+            return new ArrayList<>(players);
+        }
+    }
+
+    public int size() {
+        return players.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Method: comparator
+     * Purpose: Orders registered players by their id in this context. Unlike
+     * Player.compareTo, which compares names, no two players are ever equal.
+     *
+     * @return The comparator.
+     */
+    public Comparator<Player> comparator() {
+        return Comparator.comparingInt(this::getId);
+    }
+
+    private Entry entry(Player player) {
+        Entry entry = entries.get(player);
+        if (entry == null) {
+            throw new IllegalArgumentException(player.getName() + " is not registered in " + name);
+        }
+        return entry;
+    }
+
+    /**
+     * Method: main
+     * Purpose: Stress test. Plays many headless games at once on a thread pool, each
+     * with its own context, while every player is also registered in one shared
+     * tournament context. Checks that every context's ids are dense and unique and
+     * that the tournament's win counts add up to the finished games.
+     * Usage: java GameContext [threads] [games]
+     */
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        GameContext tournament = new GameContext("stress tournament");
+        AtomicLong finished = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int g = 0; g < games; g++) {
+            final int game = g;
+            results.add(pool.submit(() -> {
+                GameContext context = new GameContext("game " + game);
+                ArrayList<Player> players = new ArrayList<>();
+                for (int i = 0; i < 2 + game % 3; i++) {
+                    Player player = context.newPlayer("P" + game + "." + i);
+                    Strategy strategy = new ComputerStrategy();
+                    player.setStrategy(strategy);
+                    strategy.setPlayer(player);
+                    tournament.register(player);
+                    players.add(player);
+                }
+                for (int i = 0; i < players.size(); i++) {
+                    if (context.getId(players.get(i)) != i || context.getPlayer(i) != players.get(i)) {
+                        throw new IllegalStateException("Bad ids in " + context.getName());
+                    }
+                }
+                HeadlessGame headless = new HeadlessGame(new Map(players, 8, 8, 8, 8, game), new DiceEngine(game));
+                headless.setTurnLimit(2000);
+                headless.setContext(context);
+                Player winner = headless.play();
+                if (winner != null) {
+                    tournament.recordWin(winner);
+                    finished.incrementAndGet();
+                    if (context.getWins(winner) != 1) {
+                        throw new IllegalStateException("Bad wins in " + context.getName());
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        pool.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        boolean[] seen = new boolean[tournament.size()];
+        long wins = 0;
+        for (Player player : tournament.getPlayers()) {
+            int id = tournament.getId(player);
+            if (seen[id]) {
+                throw new IllegalStateException("Duplicate tournament id " + id);
+            }
+            seen[id] = true;
+            wins += tournament.getWins(player);
+        }
+        if (wins != finished.get()) {
+            throw new IllegalStateException(wins + " wins recorded for " + finished.get() + " finished games");
+        }
+        System.out.printf("OK: %d games on %d threads in %.2f s (%d finished), %d players with unique ids,"
+                + " %d wins recorded%n", games, threads, seconds, finished.get(), tournament.size(), wins);
+    }
+}
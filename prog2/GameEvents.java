@@ -0,0 +1,258 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Class: GameEvents
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: Java Flight Recorder events for the phases of a game, so a single
+ * recording shows where a slow tournament spends its time. This is the GameTrace
+ * that GameTrace.TRACE loads when jdk.jfr is available; no other class refers to
+ * it, so the rest of the game compiles and runs without Flight Recorder. Each event
+ * is timed from a begin method to its end method and carries the game id, the
+ * player and the board size. A begin method returns null, and allocates nothing,
+ * when its event is not enabled, so the caller skips the end method. The bones.jfc profile in this directory enables
+ * them all:
+ *
+ *     java -XX:StartFlightRecording:settings=bones.jfc,filename=bones.jfr HeadlessGame 500
+ *     jfr print --events bones.StrategyDecision bones.jfr
+ */
+public final class GameEvents implements GameTrace {
+    private static final EventType MAP_CONSTRUCTION = EventType.getEventType(MapConstruction.class);
+    private static final EventType BOARD_GENERATION = EventType.getEventType(BoardGeneration.class);
+    private static final EventType STRATEGY_DECISION = EventType.getEventType(StrategyDecision.class);
+    private static final EventType ATTACK_RESOLUTION = EventType.getEventType(AttackResolution.class);
+    private static final EventType DICE_AWARD = EventType.getEventType(DiceAward.class);
+
+    public GameEvents() {
+    }
+
+    @Override
+    public Object beginMapConstruction() {
+        if (!MAP_CONSTRUCTION.isEnabled()) {
+            return null;
+        }
+        MapConstruction event = new MapConstruction();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endMapConstruction(Object token, int rows, int columns, int players, boolean fromLayout) {
+        MapConstruction event = (MapConstruction) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.columns = columns;
+            event.players = players;
+            event.fromLayout = fromLayout;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginBoardGeneration() {
+        if (!BOARD_GENERATION.isEnabled()) {
+            return null;
+        }
+        BoardGeneration event = new BoardGeneration();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endBoardGeneration(Object token, int rows, int columns, int players, long index, boolean onMiss) {
+        BoardGeneration event = (BoardGeneration) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.columns = columns;
+            event.players = players;
+            event.index = index;
+            event.onMiss = onMiss;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginStrategyDecision() {
+        if (!STRATEGY_DECISION.isEnabled()) {
+            return null;
+        }
+        StrategyDecision event = new StrategyDecision();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endStrategyDecision(Object token, long gameId, String player, String strategy, int boardSize,
+            boolean attack) {
+        StrategyDecision event = (StrategyDecision) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.gameId = gameId;
+            event.player = player;
+            event.strategy = strategy;
+            event.boardSize = boardSize;
+            event.attack = attack;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginAttack() {
+        if (!ATTACK_RESOLUTION.isEnabled()) {
+            return null;
+        }
+        AttackResolution event = new AttackResolution();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endAttack(Object token, long gameId, String player, int boardSize, int attacker, int defender,
+            int attackerDice, int defenderDice, boolean won) {
+        AttackResolution event = (AttackResolution) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.gameId = gameId;
+            event.player = player;
+            event.boardSize = boardSize;
+            event.attacker = attacker;
+            event.defender = defender;
+            event.attackerDice = attackerDice;
+            event.defenderDice = defenderDice;
+            event.won = won;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginDiceAward() {
+        if (!DICE_AWARD.isEnabled()) {
+            return null;
+        }
+        DiceAward event = new DiceAward();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endDiceAward(Object token, long gameId, String player, int boardSize, int connected, int awarded) {
+        DiceAward event = (DiceAward) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.gameId = gameId;
+            event.player = player;
+            event.boardSize = boardSize;
+            event.connected = connected;
+            event.awarded = awarded;
+            event.commit();
+        }
+    }
+
+    @Name("bones.MapConstruction")
+    @Label("Map Construction")
+    @Category({ "Bones", "Board" })
+    @Description("Building a Map: victims, graph, dealing territories and dice")
+    @StackTrace(false)
+    public static final class MapConstruction extends Event {
+        @Label("Rows")
+        public int rows;
+        @Label("Columns")
+        public int columns;
+        @Label("Players")
+        public int players;
+        @Label("From Layout")
+        @Description("True if the board was dealt ahead of time, e.g. by a BoardFactory")
+        public boolean fromLayout;
+    }
+
+    @Name("bones.BoardGeneration")
+    @Label("Board Generation")
+    @Category({ "Bones", "Board" })
+    @Description("Generating a BoardLayout in a BoardFactory")
+    @StackTrace(false)
+    public static final class BoardGeneration extends Event {
+        @Label("Rows")
+        public int rows;
+        @Label("Columns")
+        public int columns;
+        @Label("Players")
+        public int players;
+        @Label("Index")
+        @Description("The board's position in its key's sequence")
+        public long index;
+        @Label("On Miss")
+        @Description("True if a take() waited for this board")
+        public boolean onMiss;
+    }
+
+    @Name("bones.StrategyDecision")
+    @Label("Strategy Decision")
+    @Category({ "Bones", "Turn" })
+    @Description("One willAttack/getAttacker/getDefender decision, or one step of a TurnPlanner's plan")
+    @StackTrace(false)
+    public static final class StrategyDecision extends Event {
+        @Label("Game")
+        public long gameId;
+        @Label("Player")
+        public String player;
+        @Label("Strategy")
+        public String strategy;
+        @Label("Board Size")
+        public int boardSize;
+        @Label("Attack")
+        @Description("True if the strategy chose to attack")
+        public boolean attack;
+    }
+
+    @Name("bones.Attack")
+    @Label("Attack")
+    @Category({ "Bones", "Turn" })
+    @Description("Rolling and resolving one attack")
+    @StackTrace(false)
+    public static final class AttackResolution extends Event {
+        @Label("Game")
+        public long gameId;
+        @Label("Player")
+        public String player;
+        @Label("Board Size")
+        public int boardSize;
+        @Label("Attacker")
+        public int attacker;
+        @Label("Defender")
+        public int defender;
+        @Label("Attacker Dice")
+        public int attackerDice;
+        @Label("Defender Dice")
+        public int defenderDice;
+        @Label("Won")
+        public boolean won;
+    }
+
+    @Name("bones.DiceAward")
+    @Label("Dice Award")
+    @Category({ "Bones", "Turn" })
+    @Description("Counting the largest cluster and awarding dice at the end of a turn")
+    @StackTrace(false)
+    public static final class DiceAward extends Event {
+        @Label("Game")
+        public long gameId;
+        @Label("Player")
+        public String player;
+        @Label("Board Size")
+        public int boardSize;
+        @Label("Connected")
+        @Description("Size of the player's largest connected cluster")
+        public int connected;
+        @Label("Dice Awarded")
+        public int awarded;
+    }
+}
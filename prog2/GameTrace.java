@@ -0,0 +1,70 @@
+/**
+ * Interface: GameTrace
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: Hooks that time the phases of a game, so Map, BoardFactory and
+ * HeadlessGame can be traced without depending on Java Flight Recorder. Each begin
+ * method starts timing a phase and returns a token for the matching end method, or
+ * null if nobody is tracing; callers skip the end call on null, so an untraced phase
+ * costs one call. The default methods trace nothing.
+ *
+ * TRACE is GameEvents, which records Flight Recorder events, when that class and
+ * the jdk.jfr module are both present at run time, and a GameTrace that does nothing
+ * otherwise. GameEvents is the only class that needs jdk.jfr to compile.
+ */
+public interface GameTrace {
+    public static final GameTrace TRACE = load();
+
+    public default Object beginMapConstruction() {
+        return null;
+    }
+
+    public default void endMapConstruction(Object token, int rows, int columns, int players, boolean fromLayout) {
+    }
+
+    public default Object beginBoardGeneration() {
+        return null;
+    }
+
+    public default void endBoardGeneration(Object token, int rows, int columns, int players, long index,
+            boolean onMiss) {
+    }
+
+    public default Object beginStrategyDecision() {
+        return null;
+    }
+
+    public default void endStrategyDecision(Object token, long gameId, String player, String strategy, int boardSize,
+            boolean attack) {
+    }
+
+    public default Object beginAttack() {
+        return null;
+    }
+
+    public default void endAttack(Object token, long gameId, String player, int boardSize, int attacker,
+            int defender, int attackerDice, int defenderDice, boolean won) {
+    }
+
+    public default Object beginDiceAward() {
+        return null;
+    }
+
+    public default void endDiceAward(Object token, long gameId, String player, int boardSize, int connected,
+            int awarded) {
+    }
+
+    // GameEvents if Flight Recorder can be used, otherwise a GameTrace that does nothing
+    private static GameTrace load() {
+        if (ModuleLayer.boot().findModule("jdk.jfr").isPresent()) {
+            try {
+                return (GameTrace) Class.forName("GameEvents").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+                // Not compiled in, or not usable here; trace nothing
+            }
+        }
+        return new GameTrace() {
+        };
+    }
+}
@@ -13,6 +13,13 @@ public class Graph {
     private int numVertices; // The number of vertices in the graph
     private boolean[][] adjacencyMatrix; // Adjacency matrix to store edges between vertices
     private Set<Integer> inactiveVertices; // Set of inactive (unplayable) vertices
+    private int[][] adjacencyLists; // Active neighbors of each vertex, null until needed
+    private int[][] hopMatrix; // All-pairs hop distances, null until requested
+    private int[] bfsQueue; // Reused queue for distancesFrom
+    private int[] distances; // Reused result buffer for distancesFrom
+    private List<Integer> articulationPoints; // Cached cut vertices, null until requested
+    private List<int[]> bridges; // Cached cut edges, null until requested
+    private boolean frozen; // True once freeze() was called; no more changes allowed
 
     /**
      * Constructor: Initializes the graph with a given number of vertices.
@@ -37,11 +44,13 @@ public class Graph {
      * Postconditions: An undirected edge is added between source and destination.
      */
     public void addEdge(int source, int destination) {
+        checkNotFrozen();
         validateVertex(source);
         validateVertex(destination);
         if (source != destination) { // Avoid self-loops
             adjacencyMatrix[source][destination] = true;
             adjacencyMatrix[destination][source] = true;
+            invalidateCaches();
         }
     }
 
@@ -55,10 +64,12 @@ public class Graph {
      * Postconditions: The edge between source and destination is removed.
      */
     public void removeEdge(int source, int destination) {
+        checkNotFrozen();
         validateVertex(source);
         validateVertex(destination);
         adjacencyMatrix[source][destination] = false;
         adjacencyMatrix[destination][source] = false;
+        invalidateCaches();
     }
 
     /**
@@ -85,14 +96,162 @@ public class Graph {
      * Preconditions: vertex is a valid vertex index.
      */
     public List<Integer> getAdjacent(int vertex) {
+        int[] adjacent = getAdjacentArray(vertex);
+        List<Integer> neighbors = new ArrayList<>(adjacent.length);
+        for (int neighbor : adjacent) {
+            neighbors.add(neighbor);
+        }
+        return neighbors;
+    }
+
+    /**
+     * Method: getAdjacentArray
+     * Purpose: Retrieves the active neighbors of a vertex in increasing order from a
+     * cache, without scanning a row of the adjacency matrix.
+     * 
+     * @param vertex The vertex whose neighbors are to be retrieved (input).
+     * @return The cached array of active neighbors. Callers must not modify it.
+     * Preconditions: vertex is a valid vertex index.
+     */
+    public int[] getAdjacentArray(int vertex) {
         validateVertex(vertex);
-        List<Integer> neighbors = new ArrayList<>();
-        for (int i = 0; i < numVertices; i++) {
-            if (adjacencyMatrix[vertex][i] && !inactiveVertices.contains(i)) {
-                neighbors.add(i);
+        if (adjacencyLists == null) {
+            buildAdjacencyLists();
+        }
+        return adjacencyLists[vertex];
+    }
+
+    /**
+     * Method: distancesFrom
+     * Purpose: Computes the hop distance from the nearest of several source vertices
+     * to every vertex in a single breadth-first search. No memory is allocated once
+     * the caches exist.
+     * 
+     * @param sources The source vertices (input). Inactive sources are ignored.
+     * @param count The number of entries of sources to use (input).
+     * @return distances[v], the hops from v to the nearest source, or -1 if v is
+     *         inactive or unreachable. The array is reused by the next call unless
+     *         the graph is frozen.
+     * Preconditions: every source is a valid vertex index.
+     */
+    public int[] distancesFrom(int[] sources, int count) {
+        if (adjacencyLists == null) {
+            buildAdjacencyLists();
+        }
+        int[] distances = this.distances;
+        int[] bfsQueue = this.bfsQueue;
+        if (frozen || distances == null) {
+            // A frozen graph may be shared between threads, so it reuses nothing
+            distances = new int[numVertices];
+            bfsQueue = new int[numVertices];
+            if (!frozen) {
+                this.distances = distances;
+                this.bfsQueue = bfsQueue;
             }
         }
-        return neighbors;
+        Arrays.fill(distances, -1);
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < count; i++) {
+            int source = sources[i];
+            validateVertex(source);
+            if (distances[source] < 0 && !inactiveVertices.contains(source)) {
+                distances[source] = 0;
+                bfsQueue[tail++] = source;
+            }
+        }
+        while (head < tail) {
+            int current = bfsQueue[head++];
+            int next = distances[current] + 1;
+            for (int neighbor : adjacencyLists[current]) {
+                if (distances[neighbor] < 0) {
+                    distances[neighbor] = next;
+                    bfsQueue[tail++] = neighbor;
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Method: distancesFrom
+     * Purpose: Same as distancesFrom(int[], int) for a collection of sources.
+     * 
+     * @param sources The source vertices (input).
+     * @return The reused distance array; see distancesFrom(int[], int).
+     */
+    public int[] distancesFrom(Collection<Integer> sources) {
+        int[] array = new int[sources.size()];
+        int i = 0;
+        for (int source : sources) {
+            array[i++] = source;
+        }
+        return distancesFrom(array, array.length);
+    }
+
+    /**
+     * Method: hopDistance
+     * Purpose: Looks up the hop distance between two vertices in the all-pairs
+     * matrix, building the matrix on first use. Meant for small boards, since the
+     * matrix takes numVertices squared ints.
+     * 
+     * @param source The first vertex (input).
+     * @param destination The second vertex (input).
+     * @return The number of edges on a shortest path, or -1 if there is none.
+     * Preconditions: source and destination are valid vertex indices.
+     */
+    public int hopDistance(int source, int destination) {
+        validateVertex(source);
+        validateVertex(destination);
+        return getHopMatrix()[source][destination];
+    }
+
+    /**
+     * Method: getHopMatrix
+     * Purpose: Returns the cached all-pairs hop distance matrix, computing it with
+     * one breadth-first search per vertex if the graph changed since the last call.
+     * 
+     * @return matrix[a][b], the hops between a and b or -1. Callers must not modify it.
+     * Postconditions: The matrix stays cached until an edge is added or removed or a
+     * vertex is removed.
+     */
+    public synchronized int[][] getHopMatrix() {
+        if (hopMatrix == null) {
+            int[][] matrix = new int[numVertices][];
+            int[] source = new int[1];
+            for (int v = 0; v < numVertices; v++) {
+                source[0] = v;
+                matrix[v] = distancesFrom(source, 1).clone();
+            }
+            hopMatrix = matrix;
+        }
+        return hopMatrix;
+    }
+
+    /**
+     * Method: freeze
+     * Purpose: Makes the graph read-only so it can be shared, e.g. between games
+     * running on several threads. The adjacency lists and cuts are computed now, and
+     * later distancesFrom calls allocate their own buffers.
+     * 
+     * @return This graph.
+     * Postconditions: addEdge, removeEdge and removeVertex throw UnsupportedOperationException.
+     */
+    public Graph freeze() {
+        if (adjacencyLists == null) {
+            buildAdjacencyLists();
+        }
+        if (articulationPoints == null) {
+            findCuts();
+        }
+        distances = null;
+        bfsQueue = null;
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
     }
 
     /**
@@ -104,6 +263,7 @@ public class Graph {
      * Postconditions: Vertex is marked as inactive and all edges associated with it are removed.
      */
     public void removeVertex(int vertex) {
+        checkNotFrozen();
         validateVertex(vertex);
         inactiveVertices.add(vertex);
         // Remove all edges associated with this vertex
@@ -111,6 +271,7 @@ public class Graph {
             adjacencyMatrix[vertex][i] = false;
             adjacencyMatrix[i][vertex] = false;
         }
+        invalidateCaches();
     }
 
     /**
@@ -156,14 +317,7 @@ public class Graph {
      * Preconditions: vertex is a valid vertex index.
      */
     public int degree(int vertex) {
-        validateVertex(vertex);
-        int degree = 0;
-        for (int i = 0; i < numVertices; i++) {
-            if (adjacencyMatrix[vertex][i] && !inactiveVertices.contains(i)) {
-                degree++;
-            }
-        }
-        return degree;
+        return getAdjacentArray(vertex).length;
     }
 
     /**
@@ -192,7 +346,7 @@ public class Graph {
 
         while (!queue.isEmpty()) {
             int current = queue.poll();
-            for (int neighbor : getAdjacent(current)) {
+            for (int neighbor : getAdjacentArray(current)) {
                 if (!visited[neighbor]) {
                     visited[neighbor] = true;
                     queue.add(neighbor);
@@ -216,6 +370,176 @@ public class Graph {
         return -1; // No active vertex found
     }
 
+    /**
+     * Method: getArticulationPoints
+     * Purpose: Finds the active vertices whose removal would disconnect the graph (or
+     * the component they are in), using one Tarjan depth-first search.
+     * 
+     * @return The articulation points in increasing order. Callers must not modify it.
+     * Postconditions: The result stays cached until the graph changes.
+     */
+    public List<Integer> getArticulationPoints() {
+        if (articulationPoints == null) {
+            findCuts();
+        }
+        return articulationPoints;
+    }
+
+    /**
+     * Method: getBridges
+     * Purpose: Finds the edges whose removal would disconnect the graph (or the
+     * component they are in), from the same search as getArticulationPoints.
+     * 
+     * @return Each bridge as {parent, child} in depth-first order. Callers must not modify it.
+     * Postconditions: The result stays cached until the graph changes.
+     */
+    public List<int[]> getBridges() {
+        if (bridges == null) {
+            findCuts();
+        }
+        return bridges;
+    }
+
+    /**
+     * Method: findCuts
+     * Purpose: Finds articulation points and bridges of the subgraph induced by the
+     * included vertices in O(V + E) with an iterative Tarjan search, so deep graphs
+     * cannot overflow the call stack.
+     * 
+     * @param adjacency adjacency[v] lists the neighbors of v (input).
+     * @param include The vertices of the subgraph, or null for all (input).
+     * @param articulation Set true for each articulation point (output).
+     * @param bridges Receives each bridge as {parent, child}, or null to skip (output).
+     * Preconditions: adjacency is symmetric and articulation.length == adjacency.length.
+     */
+    public static void findCuts(int[][] adjacency, boolean[] include, boolean[] articulation,
+            List<int[]> bridges) {
+        int n = adjacency.length;
+        int[] discovered = new int[n]; // Discovery time, 0 while unvisited
+        int[] low = new int[n]; // Earliest discovery time reachable from the subtree
+        int[] parent = new int[n];
+        int[] nextEdge = new int[n]; // Position in adjacency[v] to continue from
+        int[] stack = new int[n];
+        int time = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (discovered[root] != 0 || (include != null && !include[root])) {
+                continue;
+            }
+            int rootChildren = 0;
+            int top = 0;
+            stack[top++] = root;
+            parent[root] = -1;
+            discovered[root] = low[root] = ++time;
+
+            while (top > 0) {
+                int vertex = stack[top - 1];
+                if (nextEdge[vertex] < adjacency[vertex].length) {
+                    int neighbor = adjacency[vertex][nextEdge[vertex]++];
+                    if (include != null && !include[neighbor]) {
+                        continue;
+                    }
+                    if (discovered[neighbor] == 0) {
+                        parent[neighbor] = vertex;
+                        discovered[neighbor] = low[neighbor] = ++time;
+                        stack[top++] = neighbor;
+                        if (vertex == root) {
+                            rootChildren++;
+                        }
+                    } else if (neighbor != parent[vertex]) {
+                        low[vertex] = Math.min(low[vertex], discovered[neighbor]);
+                    }
+                } else {
+                    // Finished vertex: pass its low value up to its parent
+                    top--;
+                    int up = parent[vertex];
+                    if (up >= 0) {
+                        low[up] = Math.min(low[up], low[vertex]);
+                        if (up != root && low[vertex] >= discovered[up]) {
+                            articulation[up] = true;
+                        }
+                        if (bridges != null && low[vertex] > discovered[up]) {
+                            bridges.add(new int[] { up, vertex });
+                        }
+                    }
+                }
+            }
+            if (rootChildren > 1) {
+                articulation[root] = true;
+            }
+        }
+    }
+
+    /**
+     * Method: findCuts
+     * Purpose: Fills the articulation point and bridge caches for the whole graph.
+     */
+    private void findCuts() {
+        if (adjacencyLists == null) {
+            buildAdjacencyLists();
+        }
+        boolean[] include = new boolean[numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            include[v] = !inactiveVertices.contains(v);
+        }
+        boolean[] articulation = new boolean[numVertices];
+        List<int[]> cutEdges = new ArrayList<>();
+        findCuts(adjacencyLists, include, articulation, cutEdges);
+
+        List<Integer> points = new ArrayList<>();
+        for (int v = 0; v < numVertices; v++) {
+            if (articulation[v]) {
+                points.add(v);
+            }
+        }
+        articulationPoints = Collections.unmodifiableList(points);
+        bridges = Collections.unmodifiableList(cutEdges);
+    }
+
+    /**
+     * Method: buildAdjacencyLists
+     * Purpose: Scans the adjacency matrix once to cache every vertex's active neighbors.
+     * 
+     * Postconditions: adjacencyLists matches the current edges and inactive vertices.
+     */
+    private void buildAdjacencyLists() {
+        int[][] lists = new int[numVertices][];
+        int[] buffer = new int[numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            int count = 0;
+            for (int i = 0; i < numVertices; i++) {
+                if (adjacencyMatrix[v][i] && !inactiveVertices.contains(i)) {
+                    buffer[count++] = i;
+                }
+            }
+            lists[v] = Arrays.copyOf(buffer, count);
+        }
+        adjacencyLists = lists;
+    }
+
+    /**
+     * Method: invalidateCaches
+     * Purpose: Drops the cached adjacency lists, hop matrix and cuts after the graph changes.
+     */
+    private void invalidateCaches() {
+        adjacencyLists = null;
+        hopMatrix = null;
+        articulationPoints = null;
+        bridges = null;
+    }
+
+    /**
+     * Method: checkNotFrozen
+     * Purpose: Refuses changes to a frozen graph.
+     * 
+     * @throws UnsupportedOperationException if freeze() was called.
+     */
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Graph is frozen");
+        }
+    }
+
     /**
      * Method: validateVertex
      * Purpose: Validates that a vertex index is within bounds.
@@ -0,0 +1,336 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class: HeadlessGame
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: Plays one game of Bones on an existing Map without any GUI, following
+ * the same rules as Bones: players take turns attacking until their strategy stops,
+ * ties go to the defender, and at the end of each turn a player is awarded as many
+ * dice as its largest connected cluster. Illegal attacks end the player's turn.
+ * Dice are rolled and awarded in batches by a DiceEngine. A ReplayWriter may be
+ * attached to record the game. Strategies that implement TurnPlanner, including
+ * ones wrapped in a TimedStrategy, are asked for one plan per turn and told the
+ * outcome of each attack; all others are asked willAttack before every attack, as
+ * Bones does. Strategy decisions, attacks and dice awards are reported to
+ * GameTrace.TRACE, which records them as Flight Recorder GameEvents when Flight
+ * Recorder is available.
+ */
+public class HeadlessGame {
+    public static final int DEFAULT_TURN_LIMIT = 10000; // Turns before a game is abandoned
+    private static final AtomicLong gamesCreated = new AtomicLong(); // For default game ids
+
+    private final Map board; // The board being played on
+    private final ArrayList<Player> players; // Players in turn order
+    private final DiceEngine dice; // Source of rolls and award placement
+    private ReplayWriter replay; // Replay recorder, or null
+    private GameContext context; // Where the win is recorded, or null
+    private int turnLimit; // Turns before the game is abandoned
+    private int turn; // Number of turns played so far
+    private long gameId = gamesCreated.incrementAndGet(); // Identifies the game in events
+
+    // Scratch space for recording dice awards
+    private final int[] awarded; // Dice added per territory id during one award
+    private final int[] awardIds; // Ids of territories given dice
+    private final int[] awardCounts; // Dice given, parallel to awardIds
+
+    /**
+     * Constructor: Prepares a game on the given board.
+     *
+     * @param board A freshly constructed board.
+     * Preconditions: board is not null and has at least one player.
+     */
+    public HeadlessGame(Map board) {
+        this(board, new DiceEngine());
+    }
+
+    /**
+     * Constructor: Prepares a game on the given board with the given dice.
+     *
+     * @param board A freshly constructed board.
+     * @param dice The dice to roll; use DiceEngine(seed) for repeatable rolls.
+     * Preconditions: board and dice are not null and board has at least one player.
+     */
+    public HeadlessGame(Map board, DiceEngine dice) {
+        this.board = board;
+        this.players = board.getPlayers();
+        this.dice = dice;
+        this.turnLimit = DEFAULT_TURN_LIMIT;
+        this.awarded = new int[board.NUMTERRITORIES];
+        this.awardIds = new int[board.NUMTERRITORIES];
+        this.awardCounts = new int[board.NUMTERRITORIES];
+    }
+
+    public Map getBoard() { return board; }
+    public int getTurn() { return turn; }
+    public void setReplay(ReplayWriter replay) { this.replay = replay; }
+    public void setTurnLimit(int turnLimit) { this.turnLimit = turnLimit; }
+    public GameContext getContext() { return context; }
+    public long getGameId() { return gameId; }
+    public void setGameId(long gameId) { this.gameId = gameId; }
+
+    /**
+     * Method: setContext
+     * Purpose: Records the winner's win in the context when the game ends, instead of
+     * in the unsynchronized Player.incrementWins. Players not yet registered in the
+     * context are registered in turn order.
+     *
+     * @param context The game's context (input).
+     */
+    public void setContext(GameContext context) {
+        this.context = context;
+        for (Player player : players) {
+            context.register(player);
+        }
+    }
+
+    /**
+     * Method: play
+     * Purpose: Plays the game to the end.
+     *
+     * @return The winner, or null if the turn limit was reached first.
+     * @throws UncheckedIOException if the replay cannot be written.
+     */
+    public Player play() {
+        int index = 0;
+        while (turn < turnLimit) {
+            Player player = players.get(index);
+            if (board.countTerritories(player) > 0 && playTurn(player)) {
+                recordEnd(player);
+                if (context != null) {
+                    context.recordWin(player);
+                }
+                return player;
+            }
+            index = (index + 1) % players.size();
+            turn++;
+        }
+        recordEnd(null);
+        return null;
+    }
+
+    /**
+     * Method: playTurn
+     * Purpose: Lets one player attack until it stops, then awards its dice.
+     *
+     * @param player The player whose turn it is (input).
+     * @return True if the player now owns every occupied territory.
+     */
+    public boolean playTurn(Player player) {
+        TurnPlanner planner = planner(player.getStrategy());
+        if (planner != null) {
+            return playPlannedTurn(player, planner);
+        }
+        while (true) {
+            Object decision = GameTrace.TRACE.beginStrategyDecision();
+            boolean attack = player.willAttack(board);
+            Territory attacker = attack ? player.getAttacker() : null;
+            Territory defender = attack ? player.getDefender() : null;
+            endDecision(decision, player, attack);
+            if (!attack || !isLegal(player, attacker, defender)) {
+                break;
+            }
+            processAttack(attacker, defender);
+            if (board.countTerritories(player) == board.OCCUPIED) {
+                return true;
+            }
+        }
+        awardDice(player);
+        return false;
+    }
+
+    // The strategy as a TurnPlanner, looking through a TimedStrategy, or null
+    private static TurnPlanner planner(Strategy strategy) {
+        if (strategy instanceof TimedStrategy) {
+            return ((TimedStrategy) strategy).getPlanner();
+        }
+        return strategy instanceof TurnPlanner ? (TurnPlanner) strategy : null;
+    }
+
+    // Makes the attacks of a planner's plan until it runs out or one is illegal
+    private boolean playPlannedTurn(Player player, TurnPlanner planner) {
+        Object decision = GameTrace.TRACE.beginStrategyDecision();
+        Iterator<Attack> plan = planner.planTurn(board);
+        while (true) {
+            Attack attack = plan.hasNext() ? plan.next() : null;
+            endDecision(decision, player, attack != null);
+            if (attack == null || !isLegal(player, attack.getAttacker(), attack.getDefender())) {
+                break;
+            }
+            boolean won = processAttack(attack.getAttacker(), attack.getDefender());
+            planner.attackResolved(attack, won);
+            if (board.countTerritories(player) == board.OCCUPIED) {
+                return true;
+            }
+            decision = GameTrace.TRACE.beginStrategyDecision();
+        }
+        awardDice(player);
+        return false;
+    }
+
+    // Reports a decision's time if it is being traced
+    private void endDecision(Object decision, Player player, boolean attack) {
+        if (decision != null) {
+            GameTrace.TRACE.endStrategyDecision(decision, gameId, player.getName(),
+                    player.getStrategy().getClass().getName(), board.NUMTERRITORIES, attack);
+        }
+    }
+
+    /**
+     * Method: isLegal
+     * Purpose: Checks that an attack follows the rules.
+     *
+     * @return True if the player owns the attacker, the attacker has more than one die,
+     *         and the defender is an adjacent enemy territory.
+     */
+    public boolean isLegal(Player player, Territory attacker, Territory defender) {
+        return attacker != null && defender != null
+                && attacker.getOwner() == player
+                && attacker.getDice() > 1
+                && defender.getOwner() != null
+                && defender.getOwner() != player
+                && board.getNeighbors(attacker).contains(defender);
+    }
+
+    // Rolls both sides' dice and moves the attacker's dice on a win. Returns true on a win
+    private boolean processAttack(Territory attacker, Territory defender) {
+        Object trace = GameTrace.TRACE.beginAttack();
+        int attackerDice = attacker.getDice();
+        int defenderDice = defender.getDice();
+        Player player = attacker.getOwner();
+        int attackRoll = dice.rollSum(attacker.getDice());
+        int defenseRoll = dice.rollSum(defender.getDice());
+
+        if (replay != null) {
+            try {
+                replay.recordAttack(turn, attacker.getIdNum(), defender.getIdNum(), attackRoll, defenseRoll);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        boolean won = attackRoll > defenseRoll;
+        if (won) {
+            defender.setOwner(attacker.getOwner());
+            defender.setDice(attacker.getDice() - 1);
+        }
+        attacker.setDice(1);
+
+        if (trace != null) {
+            GameTrace.TRACE.endAttack(trace, gameId, player.getName(), board.NUMTERRITORIES, attacker.getIdNum(),
+                    defender.getIdNum(), attackerDice, defenderDice, won);
+        }
+        return won;
+    }
+
+    // Awards one die per territory in the player's largest cluster, as Bones does
+    private void awardDice(Player player) {
+        Object trace = GameTrace.TRACE.beginDiceAward();
+        int connected = board.countConnected(player);
+        int room = board.MAXDICE * board.countTerritories(player) - board.countDice(player);
+        ArrayList<Territory> property = board.getPropertyOf(player);
+
+        if (connected >= room) {
+            for (Territory territory : property) {
+                awarded[territory.getIdNum()] += board.MAXDICE - territory.getDice();
+                territory.setDice(board.MAXDICE);
+            }
+        } else {
+            dice.distribute(property, connected, board.MAXDICE, awarded);
+        }
+        int total = recordAward(player, property);
+
+        if (trace != null) {
+            GameTrace.TRACE.endDiceAward(trace, gameId, player.getName(), board.NUMTERRITORIES, connected, total);
+        }
+    }
+
+    // Writes the dice added by the last award, clearing the scratch array. Returns
+    // the number of dice added
+    private int recordAward(Player player, ArrayList<Territory> property) {
+        int count = 0;
+        int total = 0;
+        for (Territory territory : property) {
+            int id = territory.getIdNum();
+            if (awarded[id] > 0) {
+                awardIds[count] = id;
+                awardCounts[count] = awarded[id];
+                total += awarded[id];
+                count++;
+                awarded[id] = 0;
+            }
+        }
+        if (replay != null) {
+            try {
+                replay.recordAward(turn, player, awardIds, awardCounts, count);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return total;
+    }
+
+    private void recordEnd(Player winner) {
+        if (replay != null) {
+            try {
+                replay.recordEnd(turn, winner);
+                replay.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Method: main
+     * Purpose: Measures headless throughput by playing games back to back.
+     * Usage: java HeadlessGame [games] [strategy class]...
+     * With fewer than two strategies given, two ComputerStrategy players are added.
+     * Every strategy is wrapped in a TimedStrategy, and its decision latencies are
+     * reported at the end.
+     * To record GameEvents: java -XX:StartFlightRecording:settings=bones.jfc,filename=bones.jfr HeadlessGame
+     */
+    public static void main(String[] args) throws ClassNotFoundException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        ArrayList<String> names = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            names.add(args[i]);
+        }
+        while (names.size() < 2) {
+            names.add("ComputerStrategy");
+            names.add("ComputerStrategy");
+        }
+
+        CachingStrategyLoader loader = CachingStrategyLoader.shared();
+        DiceEngine dice = new DiceEngine();
+        int finished = 0;
+        long turns = 0;
+        long start = System.nanoTime();
+        for (int game = 0; game < games; game++) {
+            GameContext context = new GameContext("game " + game);
+            ArrayList<Player> players = new ArrayList<>();
+            for (String name : names) {
+                Player player = context.newPlayer(name + "#" + players.size());
+                player.setStrategy(loader.newStrategy(name));
+                player.getStrategy().setPlayer(player);
+                TimedStrategy.install(player, 0);
+                players.add(player);
+            }
+            HeadlessGame headless = new HeadlessGame(new Map(players, 8, 8, 8, 8), dice.split());
+            headless.setContext(context);
+            if (headless.play() != null) {
+                finished++;
+            }
+            turns += headless.getTurn();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games (%d finished, %d turns) in %.2f s: %.1f games/sec, %.0f turns/sec%n",
+                games, finished, turns, seconds, games / seconds, turns / seconds);
+        StrategyStats.report(System.out);
+    }
+}
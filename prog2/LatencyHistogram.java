@@ -0,0 +1,94 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class: LatencyHistogram
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: A fixed-size, thread-safe histogram of nanosecond latencies. Values are
+ * grouped into log-scaled buckets (8 buckets per power of two), so percentiles are
+ * accurate to within 12.5% and recording a value never allocates.
+ */
+public class LatencyHistogram {
+    private static final int LINEAR = 16; // Values below this get their own bucket
+    private static final int SUB_BUCKETS = 8; // Buckets per power of two above LINEAR
+    private static final int BUCKETS = LINEAR + (64 - 4) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Method: record
+     * Purpose: Adds one latency sample.
+     *
+     * @param nanos The latency in nanoseconds (input). Negative values count as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        total.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Method: getCount
+     * @return The number of samples recorded.
+     */
+    public long getCount() {
+        return total.get();
+    }
+
+    /**
+     * Method: getMax
+     * @return The largest sample recorded, in nanoseconds.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Method: percentile
+     * Purpose: Estimates the latency below which the given fraction of samples fall.
+     *
+     * @param fraction The fraction of samples, between 0 and 1 (input).
+     * @return The upper bound of the bucket holding that sample, capped at the max, or 0 if empty.
+     */
+    public long percentile(double fraction) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // Maps a value to its bucket index
+    private static int bucketOf(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // >= 4
+        int sub = (int) (value >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    // Returns the largest value that falls into a bucket
+    private static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR) / SUB_BUCKETS + 4;
+        int sub = (bucket - LINEAR) % SUB_BUCKETS;
+        long base = (long) (SUB_BUCKETS + sub) << (exponent - 3);
+        return base + (1L << (exponent - 3)) - 1;
+    }
+}
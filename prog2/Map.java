@@ -1,4 +1,6 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Random;
 import java.util.Queue;
 import java.util.LinkedList;
@@ -23,9 +25,18 @@ public class Map {
 
     // Instance variables representing the game state
     private Territory[][] map; // 2D array of the game board as territories
-    private Graph graph; // Graph representing relationships between territories
+    private BoardTopology topology; // Frozen layout, possibly shared with other maps
     private ArrayList<Player> players; // List of players in the game
     private ArrayList<Integer> inactiveTerritories; // IDs of inactive victims
+    private int[][] gridAdjacency; // Non-victim grid neighbors of each territory ID, from the topology
+    private long ownershipVersion; // Incremented whenever a territory changes owner
+    private long cutVersion = -1; // ownershipVersion the cut cache was built for
+    private IdentityHashMap<Player, ArrayList<Territory>> cutCache = new IdentityHashMap<>();
+    private int[] enemyCount; // Enemy grid neighbors of each territory ID, 0 if unowned
+    private int[] frontierPosition; // Index of each territory ID in its owner's frontier, or -1
+    private IdentityHashMap<Player, Frontier> frontiers = new IdentityHashMap<>();
+    private Random random; // Source of every random choice made while building the map
+    private static volatile boolean verbose; // Report on connectivity while building graphs; off by default
 
     /**
      * Constructor: Initializes the game map, graph, and territories.
@@ -38,6 +49,31 @@ public class Map {
      * Postconditions: The map is initialized, territories and dice are distributed.
      */
     public Map(ArrayList<Player> players, int rows, int columns, int victims, int maxDice) {
+        this(players, rows, columns, victims, maxDice, new Random());
+    }
+
+    /**
+     * Constructor: Initializes the game map like the constructor above, but makes every
+     * random choice (victims, owners and dice) from the seed, so the same seed always
+     * gives the same board.
+     * @param players List of players participating in the game
+     * @param rows Number of rows in the game board
+     * @param columns Number of columns in the game board
+     * @param victims Number of territories marked as inactive
+     * @param maxDice Maximum number of dice allowed per territory
+     * @param seed The seed for the board's random choices
+     * Preconditions: 'players' must not be null and 'rows', 'columns', and 'maxDice' must be positive.
+     * Postconditions: The map is initialized, territories and dice are distributed.
+     */
+    public Map(ArrayList<Player> players, int rows, int columns, int victims, int maxDice, long seed) {
+        this(players, rows, columns, victims, maxDice, new Random(seed));
+    }
+
+    // Builds the board from the given source of randomness. With players == null only
+    // the layout is built, for generateTopology
+    private Map(ArrayList<Player> players, int rows, int columns, int victims, int maxDice, Random random) {
+        Object trace = GameTrace.TRACE.beginMapConstruction();
+        this.random = random;
         this.players = players;
         this.ROWS = rows;
         this.COLUMNS = columns;
@@ -57,12 +93,91 @@ public class Map {
             }
         }
 
-        // Initialize the graph representing territory neighbors
-        graph = constructGraph(ROWS, COLUMNS, VICTIMS);
+        // Build the graph representing territory neighbors, then keep only its frozen
+        // compressed form in the topology
+        topology = new BoardTopology(ROWS, COLUMNS, inactiveTerritories, constructGraph(ROWS, COLUMNS, VICTIMS));
+        gridAdjacency = topology.gridAdjacency();
+        initFrontiers();
 
         // Partition territories to players and distribute dice
-        partitionTerritories();
-        distributeDice();
+        if (players != null) {
+            applyLayout(BoardLayout.deal(topology, players.size(), MAXDICE, random));
+            endTrace(trace, false);
+        }
+    }
+
+    /**
+     * Constructor: Starts a new game on a shared board layout. Only the territories
+     * (owners and dice) belong to this map; the graph and victims are read from the
+     * topology, so no adjacency matrix is built.
+     * @param players List of players participating in the game
+     * @param topology The frozen board layout, e.g. from BoardTopology.freeze
+     * @param maxDice Maximum number of dice allowed per territory
+     * Preconditions: 'players' and 'topology' must not be null and 'maxDice' must be positive.
+     * Postconditions: The map is initialized, territories and dice are distributed.
+     */
+    public Map(ArrayList<Player> players, BoardTopology topology, int maxDice) {
+        this(players, BoardLayout.deal(topology, players.size(), maxDice, new Random()));
+    }
+
+    /**
+     * Constructor: Starts a new game on a shared board layout, dealing territories
+     * and dice from the seed, so the same seed always gives the same board.
+     * @param players List of players participating in the game
+     * @param topology The frozen board layout, e.g. from BoardTopology.freeze
+     * @param maxDice Maximum number of dice allowed per territory
+     * @param seed The seed for dealing territories and dice
+     */
+    public Map(ArrayList<Player> players, BoardTopology topology, int maxDice, long seed) {
+        this(players, BoardLayout.deal(topology, players.size(), maxDice, new Random(seed)));
+    }
+
+    /**
+     * Constructor: Starts a new game from a fully dealt layout, e.g. one taken from a
+     * BoardFactory. Player i receives the territories and dice of slot i; nothing is
+     * random, so this only fills in the territories.
+     * @param players List of players, one per slot of the layout
+     * @param layout The dealt board
+     * Preconditions: players.size() == layout.getPlayerCount().
+     * Postconditions: The map matches the layout.
+     */
+    public Map(ArrayList<Player> players, BoardLayout layout) {
+        if (players.size() != layout.getPlayerCount()) {
+            throw new IllegalArgumentException("Layout is for " + layout.getPlayerCount()
+                    + " players, not " + players.size());
+        }
+        Object trace = GameTrace.TRACE.beginMapConstruction();
+        BoardTopology topology = layout.getTopology();
+        int maxDice = layout.getMaxDice();
+        this.players = players;
+        this.ROWS = topology.ROWS;
+        this.COLUMNS = topology.COLUMNS;
+        this.VICTIMS = topology.VICTIMS;
+        this.NUMTERRITORIES = ROWS * COLUMNS;
+        this.OCCUPIED = NUMTERRITORIES - VICTIMS;
+        this.MAXDICE = maxDice;
+        this.topology = topology;
+        this.inactiveTerritories = topology.getVictims();
+        this.gridAdjacency = topology.gridAdjacency();
+        initFrontiers();
+
+        map = new Territory[ROWS][COLUMNS];
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < COLUMNS; col++) {
+                map[row][col] = new Territory(this);
+                map[row][col].setIdNum(getTerritoryId(row, col));
+            }
+        }
+
+        applyLayout(layout);
+        endTrace(trace, true);
+    }
+
+    // Reports the construction time of this map if it is being traced
+    private void endTrace(Object trace, boolean fromLayout) {
+        if (trace != null) {
+            GameTrace.TRACE.endMapConstruction(trace, ROWS, COLUMNS, players.size(), fromLayout);
+        }
     }
 
     /**
@@ -73,6 +188,17 @@ public class Map {
         return players;
     }
 
+    /**
+     * Method: setVerbose
+     * Purpose: Turns the connectivity messages printed while building graphs on or
+     * off for later maps. They are off by default, so benchmark and tournament loops
+     * that build many maps stay quiet; errors are always printed.
+     * @param on True to print the messages
+     */
+    public static void setVerbose(boolean on) {
+        verbose = on;
+    }
+
     /**
      * Method to access for the map (territory array).
      * @return The 2D array representing the game map.
@@ -83,10 +209,28 @@ public class Map {
 
     /**
      * Method to access for the graph representing the territory connections.
-     * @return The graph representing the map's territory relationships.
+     * @return The topology's shared, frozen graph; see BoardTopology.getGraph.
      */
     public Graph getGraph() {
-        return graph;
+        return topology.getGraph();
+    }
+
+    /**
+     * Method: copy
+     * Purpose: Copies the current position onto a new Map with the same players and
+     * topology, so it can be read while this map keeps changing.
+     * @return The copy; changes to either map do not affect the other.
+     */
+    public Map copy() {
+        return new Map(players, BoardLayout.capture(this));
+    }
+
+    /**
+     * Method to access the frozen board layout, which other maps may share.
+     * @return The topology of this map.
+     */
+    public BoardTopology getTopology() {
+        return topology;
     }
 
     /**
@@ -168,83 +312,32 @@ public class Map {
     }
 
     /**
-     * Method: partitionTerritories
-     * Purpose: Distributes territories randomly among players.
-     * Preconditions: Players must be initialized.
-     * Postconditions: Territories are assigned to players.
+     * Method: generateTopology
+     * Purpose: Picks victims and builds a connected territory graph without any players,
+     * for boards that are dealt later.
+     * @param rows Number of rows in the game board
+     * @param columns Number of columns in the game board
+     * @param victims Number of territories marked as inactive
+     * @param random Source of the random choices
+     * @return The frozen layout.
      */
-    private void partitionTerritories() {
-        ArrayList<Territory> unownedTerritories = new ArrayList<>();
-
-        // Collect non-victim territories
-        for (int row = 0; row < ROWS; row++) {
-            for (int col = 0; col < COLUMNS; col++) {
-                int id = getTerritoryId(row, col);
-                Territory territory = map[row][col];
-                if (!inactiveTerritories.contains(id) && territory.getOwner() == null) {
-                    unownedTerritories.add(territory);
-                }
-            }
-        }
-
-        Random rand = new Random();
-        int totalTerritories = unownedTerritories.size();
-        int territoriesPerPlayer = totalTerritories / players.size();
-        int extraTerritories = totalTerritories % players.size();
-
-        // Assign territories equally among players
-        for (Player player : players) {
-            for (int i = 0; i < territoriesPerPlayer; i++) {
-                Territory territory = unownedTerritories.remove(rand.nextInt(unownedTerritories.size()));
-                territory.setOwner(player);
-            }
-        }
-
-        // Distribute any leftover territories
-        for (int i = 0; i < extraTerritories; i++) {
-            Territory territory = unownedTerritories.remove(rand.nextInt(unownedTerritories.size()));
-            Player randomPlayer = players.get(rand.nextInt(players.size()));
-            territory.setOwner(randomPlayer);
-        }
+    static BoardTopology generateTopology(int rows, int columns, int victims, Random random) {
+        return new Map(null, rows, columns, victims, 1, random).topology;
     }
 
     /**
-     * Method: distributeDice
-     * Purpose: Distributes dice randomly across each player's territories.
-     * Preconditions: Players and their territories must be initialized.
-     * Postconditions: Dice are distributed among territories.
+     * Method: applyLayout
+     * Purpose: Gives each territory the owner and dice the layout dealt to it.
+     * Preconditions: Players are initialized and the layout has this map's dimensions.
+     * Postconditions: Territories are assigned to players and hold their dice.
      */
-    private void distributeDice() {
-        Random rand = new Random();
-
-        // Step 1: Determine the number of dice each player should receive
-        int minTerritories = Integer.MAX_VALUE;
-        for (Player player : players) {
-            minTerritories = Math.min(minTerritories, getPropertyOf(player).size());
-        }
-        int totalDicePerPlayer = minTerritories * 3;
-
-        for (Player player : players) {
-            ArrayList<Territory> playerTerritories = getPropertyOf(player);
-            int numTerritories = playerTerritories.size();
-            int totalDice = totalDicePerPlayer; // Fixed dice number for every player
-
-            for (Territory territory : playerTerritories) {
-                territory.setDice(1);
-                totalDice--; 
-            }
-
-            boolean territoryMaxDice = false;
-
-            while (totalDice > 0 && !territoryMaxDice) {
-                Territory selectedTerritory = playerTerritories.get(rand.nextInt(numTerritories));
-                if (selectedTerritory.getDice() < MAXDICE) {
-                    selectedTerritory.setDice(selectedTerritory.getDice() + 1);
-                    totalDice--;
-                }
-
-                // Update the territoryMaxDice variable to check if all territories have reached MAXDICE
-                territoryMaxDice = playerTerritories.stream().allMatch(t -> t.getDice() == MAXDICE);
+    private void applyLayout(BoardLayout layout) {
+        for (int id = 0; id < NUMTERRITORIES; id++) {
+            Territory territory = getTerritoryById(id);
+            int slot = layout.getOwnerSlot(id);
+            if (slot >= 0) {
+                territory.setOwner(players.get(slot));
+                territory.setDice(layout.getDice(id));
             }
         }
     }
@@ -267,7 +360,7 @@ public class Map {
     public Graph constructGraph(int rows, int cols, int victims) {
         int totalTerritories = rows * cols;
         Graph graph = new Graph(totalTerritories);
-        Random rand = new Random();
+        Random rand = random != null ? random : new Random();
 
         // Step 1: Randomly select victim territories
         while (inactiveTerritories.size() < victims) {
@@ -364,7 +457,7 @@ public class Map {
                 for (int j = 0; j < activeTerritories.size(); j++) {
                     if (visited[activeTerritories.get(j)]) {
                         graph.addEdge(activeTerritories.get(j), territoryId);
-                        System.out.println("Forcefully connecting isolated territory " + territoryId + " to " + activeTerritories.get(j));
+                        if (verbose) System.out.println("Forcefully connecting isolated territory " + territoryId + " to " + activeTerritories.get(j));
                         bfs(graph, territoryId, visited); // Re-run BFS to ensure it's connected
                         break;
                     }
@@ -382,7 +475,7 @@ public class Map {
         }
 
         if (allConnected) {
-            System.out.println("All territories are successfully connected!");
+            if (verbose) System.out.println("All territories are successfully connected!");
         } else {
             System.out.println("Warning: Some territories are still isolated.");
         }
@@ -405,8 +498,158 @@ public class Map {
         }
     }
 
+    /**
+     * Method: getCutTerritories
+     * Purpose: Finds the territories of a player whose capture would split that
+     * player's connected region in two. These are the articulation points of the
+     * grid adjacency restricted to the player's territories.
+     * @param player The player whose territories are examined.
+     * @return The cut territories, in ID order.
+     * Postconditions: The result is cached until any territory changes owner.
+     */
+    public ArrayList<Territory> getCutTerritories(Player player) {
+        if (cutVersion != ownershipVersion) {
+            cutCache.clear();
+            cutVersion = ownershipVersion;
+        }
+        ArrayList<Territory> cuts = cutCache.get(player);
+        if (cuts == null) {
+            boolean[] owned = new boolean[NUMTERRITORIES];
+            for (int id = 0; id < NUMTERRITORIES; id++) {
+                owned[id] = getTerritoryById(id).getOwner() == player && !isVictim(id);
+            }
+            boolean[] articulation = new boolean[NUMTERRITORIES];
+            Graph.findCuts(gridAdjacency, owned, articulation, null);
+            cuts = new ArrayList<>();
+            for (int id = 0; id < NUMTERRITORIES; id++) {
+                if (articulation[id]) {
+                    cuts.add(getTerritoryById(id));
+                }
+            }
+            cutCache.put(player, cuts);
+        }
+        return new ArrayList<>(cuts);
+    }
+
+    /**
+     * Method: isCutTerritory
+     * Purpose: Tells whether capturing a territory would split its owner's region.
+     * @param territory The territory to check.
+     * @return True if it is one of getCutTerritories(its owner).
+     */
+    public boolean isCutTerritory(Territory territory) {
+        if (territory.getOwner() == null) {
+            return false;
+        }
+        getCutTerritories(territory.getOwner());
+        return cutCache.get(territory.getOwner()).contains(territory);
+    }
+
+    /**
+     * Method: getOwnershipVersion
+     * Purpose: Gives a counter that changes whenever any territory changes owner, so
+     * callers can tell when their own cached analysis is stale.
+     * @return The current ownership version.
+     */
+    public long getOwnershipVersion() {
+        return ownershipVersion;
+    }
+
+    /**
+     * Method: getFrontier
+     * Purpose: Gives the player's territories that touch an enemy territory, without
+     * scanning the board. The view is live: Map updates it on every change of owner.
+     * @param player The player.
+     * @return The player's frontier; empty if the player owns no territory next to an enemy.
+     */
+    public Frontier getFrontier(Player player) {
+        return frontier(player);
+    }
+
+    /**
+     * Method: countEnemyNeighbors
+     * Purpose: Counts the owned territories next to a territory that belong to
+     * someone other than its owner, the same ones getEnemyNeighbors lists, in O(1).
+     * @param id The territory ID.
+     * @return The number of enemy neighbors, 0 for victims and unowned territories.
+     */
+    public int countEnemyNeighbors(int id) {
+        return enemyCount[id];
+    }
+
+    // Called by Territory.setOwner whenever a territory changes owner. Moves the
+    // territory between frontiers and updates the enemy counts of it and its
+    // grid neighbors, in O(degree)
+    void ownershipChanged(Territory territory, Player previous) {
+        ownershipVersion++;
+        int id = territory.getIdNum();
+        if (enemyCount == null || id < 0 || id >= NUMTERRITORIES || getTerritoryById(id) != territory) {
+            return; // Not one of this map's territories yet
+        }
+        Player owner = territory.getOwner();
+        if (previous != null && enemyCount[id] > 0) {
+            Frontier frontier = frontier(previous);
+            frontier.remove(id);
+            frontier.addEnemyEdges(-enemyCount[id]);
+        }
+
+        int count = 0;
+        for (int neighborId : gridAdjacency[id]) {
+            Player other = getTerritoryById(neighborId).getOwner();
+            if (other == null) {
+                continue;
+            }
+            boolean enemyNow = owner != null && other != owner;
+            boolean enemyBefore = previous != null && other != previous;
+            if (enemyNow) {
+                count++;
+            }
+            if (enemyNow != enemyBefore) {
+                adjustEnemyCount(neighborId, other, enemyNow ? 1 : -1);
+            }
+        }
+        enemyCount[id] = count;
+        if (count > 0) {
+            Frontier frontier = frontier(owner);
+            frontier.add(id);
+            frontier.addEnemyEdges(count);
+        }
+    }
+
+    // Changes a territory's enemy count, moving it on or off its owner's frontier
+    private void adjustEnemyCount(int id, Player owner, int delta) {
+        Frontier frontier = frontier(owner);
+        int before = enemyCount[id];
+        enemyCount[id] = before + delta;
+        frontier.addEnemyEdges(delta);
+        if (before == 0) {
+            frontier.add(id);
+        } else if (enemyCount[id] == 0) {
+            frontier.remove(id);
+        }
+    }
+
+    private Frontier frontier(Player player) {
+        Frontier frontier = frontiers.get(player);
+        if (frontier == null) {
+            frontier = new Frontier(player, frontierPosition);
+            frontiers.put(player, frontier);
+        }
+        return frontier;
+    }
+
+    // Allocates the frontier bookkeeping; every territory starts unowned
+    private void initFrontiers() {
+        enemyCount = new int[NUMTERRITORIES];
+        frontierPosition = new int[NUMTERRITORIES];
+        Arrays.fill(frontierPosition, -1);
+    }
+
     // Method to check if a territory is a victim
     public boolean isVictim(int id) {
+        if (topology != null) {
+            return topology.isVictim(id);
+        }
         return inactiveTerritories.contains(id);
     }
 
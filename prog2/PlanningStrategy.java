@@ -0,0 +1,65 @@
+import java.util.Iterator;
+
+/**
+ * Class: PlanningStrategy
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: Base class for TurnPlanners that must also work with engines that only
+ * know Strategy. willAttack takes the next attack from the current turn's plan,
+ * starting a new plan when there is none. Such engines do not report outcomes, so
+ * the outcome of the last attack is read off the board at the next willAttack: it
+ * was made if its attacker now holds one die, and won if the player now owns its
+ * defender. An attack that was not made (the engine refused it) ends the plan.
+ */
+public abstract class PlanningStrategy implements TurnPlanner {
+    protected Player player; // The player this strategy plays for
+
+    private Map board; // Board the current plan is for
+    private Iterator<Attack> plan; // The current turn's plan, or null between turns
+    private Attack pending; // Last attack handed out by willAttack, not yet resolved
+
+    public void setPlayer(Player whom) {
+        player = whom;
+    }
+
+    /**
+     * Method: willAttack
+     * Purpose: Answers the Strategy contract from the plan.
+     *
+     * @param board The current board (input).
+     * @return True if the plan has another attack, now available from getAttacker
+     *         and getDefender.
+     */
+    public boolean willAttack(Map board) {
+        if (pending != null) {
+            Territory from = pending.getAttacker();
+            if (board == this.board && from.getOwner() == player && from.getDice() == 1) {
+                attackResolved(pending, pending.getDefender().getOwner() == player);
+            } else {
+                plan = null; // Not made, so the turn ended there
+            }
+            pending = null;
+        }
+        if (plan == null || board != this.board) {
+            this.board = board;
+            plan = planTurn(board);
+        }
+        if (plan.hasNext()) {
+            pending = plan.next();
+            if (pending != null) {
+                return true;
+            }
+        }
+        plan = null;
+        return false;
+    }
+
+    public Territory getAttacker() {
+        return pending == null ? null : pending.getAttacker();
+    }
+
+    public Territory getDefender() {
+        return pending == null ? null : pending.getDefender();
+    }
+}
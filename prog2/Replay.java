@@ -0,0 +1,363 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Class: Replay
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: Reads a replay file written by ReplayWriter and reconstructs the board
+ * (owner and dice of every territory) after any event, without running strategies
+ * or building a Map. The event stream is indexed once when the file is opened, so
+ * seeking forward applies only the events in between.
+ */
+public class Replay {
+    public final int ROWS; // Rows on the recorded board
+    public final int COLUMNS; // Columns on the recorded board
+    public final int MAXDICE; // Maximum dice per territory
+    public final int NUMTERRITORIES; // ROWS * COLUMNS
+
+    private final ByteBuffer data; // Entire file contents
+    private final String[] playerNames; // Player names in board order
+    private final int[] initialOwner; // Owner index per territory at the start
+    private final int[] initialDice; // Dice per territory at the start
+    private final int[] eventOffsets; // File offset of every event
+    private final int[] eventTurns; // Turn number of every event
+    private final int eventCount; // Number of events in the file
+
+    private final int[] owner; // Current owner index per territory (NO_OWNER if none)
+    private final int[] dice; // Current dice per territory
+    private int position; // Number of events applied so far
+
+    /**
+     * Constructor: Loads and indexes a replay file.
+     *
+     * @param file The replay file to read.
+     * @throws IOException if the file cannot be read or is not a replay.
+     * Postconditions: The replay is positioned at the starting board.
+     */
+    public Replay(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            data = ByteBuffer.allocate((int) channel.size());
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // Keep reading until the buffer is full
+            }
+            data.flip();
+        }
+
+        require(5);
+        if (data.getInt() != ReplayWriter.MAGIC || data.get() != ReplayWriter.VERSION) {
+            throw new IOException("Not a replay file: " + file);
+        }
+        require(6);
+        ROWS = data.getShort();
+        COLUMNS = data.getShort();
+        MAXDICE = data.get();
+        NUMTERRITORIES = ROWS * COLUMNS;
+        if (ROWS <= 0 || COLUMNS <= 0) {
+            throw new IOException("Bad board size " + ROWS + "x" + COLUMNS + " in replay file: " + file);
+        }
+
+        playerNames = new String[data.get() & 0xFF];
+        for (int i = 0; i < playerNames.length; i++) {
+            require(2);
+            byte[] name = new byte[data.getShort() & 0xFFFF];
+            require(name.length);
+            data.get(name);
+            playerNames[i] = new String(name, StandardCharsets.UTF_8);
+        }
+
+        require(2L * NUMTERRITORIES);
+        initialOwner = new int[NUMTERRITORIES];
+        initialDice = new int[NUMTERRITORIES];
+        for (int id = 0; id < NUMTERRITORIES; id++) {
+            initialOwner[id] = checkPlayer(data.get() & 0xFF, true);
+            initialDice[id] = data.get();
+        }
+
+        // Index the events, checking every field so that replaying them cannot fail
+        int[] offsets = new int[256];
+        int[] turns = new int[256];
+        int count = 0;
+        while (data.hasRemaining()) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                turns = Arrays.copyOf(turns, count * 2);
+            }
+            offsets[count] = data.position();
+            turns[count] = skipEvent();
+            count++;
+        }
+        eventOffsets = offsets;
+        eventTurns = turns;
+        eventCount = count;
+
+        owner = new int[NUMTERRITORIES];
+        dice = new int[NUMTERRITORIES];
+        rewind();
+    }
+
+    /**
+     * Method: getEventCount
+     * @return The number of events in the replay.
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Method: getPosition
+     * @return The number of events applied to the current board.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Method: getPlayerName
+     * @param index A player index as stored in the replay (input).
+     * @return The player's name.
+     */
+    public String getPlayerName(int index) {
+        return playerNames[index];
+    }
+
+    public int getPlayerCount() { return playerNames.length; }
+    public int getOwner(int territory) { return owner[territory]; }
+    public int getDice(int territory) { return dice[territory]; }
+
+    /**
+     * Method: rewind
+     * Purpose: Returns to the starting board.
+     */
+    public void rewind() {
+        System.arraycopy(initialOwner, 0, owner, 0, NUMTERRITORIES);
+        System.arraycopy(initialDice, 0, dice, 0, NUMTERRITORIES);
+        position = 0;
+    }
+
+    /**
+     * Method: seek
+     * Purpose: Moves the board to the state after the given number of events.
+     *
+     * @param event Number of events to have applied, 0..getEventCount() (input).
+     * Postconditions: getPosition() == event.
+     */
+    public void seek(int event) {
+        if (event < 0 || event > eventCount) {
+            throw new IllegalArgumentException("Invalid event index: " + event);
+        }
+        if (event < position) {
+            rewind();
+        }
+        while (position < event) {
+            applyEvent(position++);
+        }
+    }
+
+    /**
+     * Method: seekTurn
+     * Purpose: Moves the board to the state at the start of the given turn.
+     *
+     * @param turn The turn number (input).
+     */
+    public void seekTurn(int turn) {
+        int event = 0;
+        while (event < eventCount && eventTurns[event] < turn) {
+            event++;
+        }
+        seek(event);
+    }
+
+    /**
+     * Method: describeEvent
+     * Purpose: Returns a one-line description of an event, for debugging.
+     *
+     * @param event The event index (input).
+     * @return The description.
+     */
+    public String describeEvent(int event) {
+        ByteBuffer in = data.duplicate();
+        in.position(eventOffsets[event]);
+        byte tag = in.get();
+        int turn = getVarInt(in);
+        switch (tag) {
+            case ReplayWriter.ATTACK_WON:
+            case ReplayWriter.ATTACK_LOST:
+                return String.format("turn %d: %d attacks %d, rolls %d vs %d, %s", turn, getVarInt(in),
+                        getVarInt(in), getVarInt(in), getVarInt(in), tag == ReplayWriter.ATTACK_WON ? "won" : "lost");
+            case ReplayWriter.AWARD:
+                int player = in.get() & 0xFF;
+                return String.format("turn %d: %s awarded dice on %d territories", turn, playerNames[player],
+                        getVarInt(in));
+            default:
+                int winner = in.get() & 0xFF;
+                return String.format("turn %d: game over, winner %s", turn,
+                        winner == ReplayWriter.NO_OWNER ? "none" : playerNames[winner]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < COLUMNS; col++) {
+                int id = row * COLUMNS + col;
+                if (owner[id] == ReplayWriter.NO_OWNER) {
+                    string.append("  --");
+                } else {
+                    string.append(String.format(" %c:%d", (char) ('A' + owner[id]), dice[id]));
+                }
+            }
+            string.append('\n');
+        }
+        return string.toString();
+    }
+
+    /**
+     * Method: main
+     * Purpose: Prints the events of a replay and the board at a given turn.
+     * Usage: java Replay file [turn]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java Replay file [turn]");
+            return;
+        }
+        Replay replay = new Replay(Paths.get(args[0]));
+        for (int i = 0; i < replay.getPlayerCount(); i++) {
+            System.out.println((char) ('A' + i) + " = " + replay.getPlayerName(i));
+        }
+        if (args.length > 1) {
+            replay.seekTurn(Integer.parseInt(args[1]));
+        } else {
+            for (int i = 0; i < replay.getEventCount(); i++) {
+                System.out.println(replay.describeEvent(i));
+            }
+            replay.seek(replay.getEventCount());
+        }
+        System.out.println("After " + replay.getPosition() + " events:");
+        System.out.print(replay);
+    }
+
+    // Applies one event to the current board
+    private void applyEvent(int event) {
+        ByteBuffer in = data.duplicate();
+        in.position(eventOffsets[event]);
+        byte tag = in.get();
+        getVarInt(in); // turn
+        switch (tag) {
+            case ReplayWriter.ATTACK_WON: {
+                int attacker = getVarInt(in);
+                int defender = getVarInt(in);
+                owner[defender] = owner[attacker];
+                dice[defender] = dice[attacker] - 1;
+                dice[attacker] = 1;
+                break;
+            }
+            case ReplayWriter.ATTACK_LOST: {
+                dice[getVarInt(in)] = 1;
+                break;
+            }
+            case ReplayWriter.AWARD: {
+                in.get(); // player
+                int count = getVarInt(in);
+                for (int i = 0; i < count; i++) {
+                    int territory = getVarInt(in);
+                    dice[territory] += in.get();
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    // Skips over the event at the current position and returns its turn
+    private int skipEvent() throws IOException {
+        byte tag = data.get();
+        int turn = readVarInt();
+        switch (tag) {
+            case ReplayWriter.ATTACK_WON:
+            case ReplayWriter.ATTACK_LOST:
+                checkTerritory(readVarInt());
+                checkTerritory(readVarInt());
+                readVarInt(); // attack roll
+                readVarInt(); // defense roll
+                break;
+            case ReplayWriter.AWARD:
+                require(1);
+                checkPlayer(data.get() & 0xFF, false);
+                int count = readVarInt();
+                for (int i = 0; i < count; i++) {
+                    checkTerritory(readVarInt());
+                    require(1);
+                    data.get();
+                }
+                break;
+            case ReplayWriter.END:
+                require(1);
+                checkPlayer(data.get() & 0xFF, true);
+                break;
+            default:
+                throw new IOException("Unknown replay event tag " + tag + " at offset " + (data.position() - 1));
+        }
+        return turn;
+    }
+
+    // Throws IOException unless at least bytes more bytes follow the current position
+    private void require(long bytes) throws IOException {
+        if (data.remaining() < bytes) {
+            throw new IOException("Truncated replay file: " + bytes + " bytes needed at offset " + data.position()
+                    + ", " + data.remaining() + " left");
+        }
+    }
+
+    // Reads an unsigned LEB128 integer from data, checking its length
+    private int readVarInt() throws IOException {
+        int start = data.position();
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            require(1);
+            byte b = data.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint at offset " + start);
+    }
+
+    private int checkTerritory(int id) throws IOException {
+        if (id < 0 || id >= NUMTERRITORIES) {
+            throw new IOException("Territory " + id + " out of range before offset " + data.position());
+        }
+        return id;
+    }
+
+    private int checkPlayer(int index, boolean noOwnerAllowed) throws IOException {
+        if (index >= playerNames.length && !(noOwnerAllowed && index == ReplayWriter.NO_OWNER)) {
+            throw new IOException("Player " + index + " out of range before offset " + data.position());
+        }
+        return index;
+    }
+
+    // Reads an unsigned LEB128 integer
+    private static int getVarInt(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
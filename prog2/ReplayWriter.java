@@ -0,0 +1,194 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Class: ReplayWriter
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: Writes an append-only binary record of one game: the starting board
+ * (owner and dice of every territory) followed by a stream of attack, award and
+ * end events. Events are packed with variable-length integers into a buffer that
+ * is flushed through a FileChannel. See Replay for the reader.
+ *
+ * Layout (all multi-byte fixed fields big-endian):
+ *   header:  int MAGIC, byte VERSION, short rows, short columns, byte maxDice,
+ *            byte players, then per player a short length + UTF-8 name,
+ *            then per territory a byte owner (NO_OWNER if none) and a byte dice
+ *   events:  byte tag, varint turn, then
+ *            ATTACK_WON / ATTACK_LOST: varint attacker, varint defender,
+ *                                      varint attack roll, varint defense roll
+ *            AWARD: byte player, varint count, count x (varint territory, byte dice added)
+ *            END:   byte winner (NO_OWNER if the game was abandoned)
+ */
+public class ReplayWriter implements Closeable {
+    public static final int MAGIC = 0x424E5250; // "BNRP"
+    public static final byte VERSION = 2; // 2: roll sums are varints, so MAXDICE may exceed 21
+    public static final byte ATTACK_WON = 1;
+    public static final byte ATTACK_LOST = 2;
+    public static final byte AWARD = 3;
+    public static final byte END = 4;
+    public static final int NO_OWNER = 0xFF;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_FIXED_EVENT = 32; // Upper bound on one event without its award list
+
+    private final FileChannel channel; // Destination file
+    private final ByteBuffer buffer; // Pending bytes not yet written
+    private final ArrayList<Player> players; // Players in board order, for ids
+
+    /**
+     * Constructor: Creates (or truncates) a replay file and writes the starting board.
+     *
+     * @param file The file to write.
+     * @param board The board at the start of the game.
+     * @throws IOException if the file cannot be written.
+     * Preconditions: At most 255 players and 127 dice per territory.
+     * Postconditions: The header is buffered; events may be recorded.
+     */
+    public ReplayWriter(Path file, Map board) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.players = board.getPlayers();
+
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putShort((short) board.ROWS);
+        buffer.putShort((short) board.COLUMNS);
+        buffer.put((byte) board.MAXDICE);
+        buffer.put((byte) players.size());
+        for (Player player : players) {
+            byte[] name = player.getName().getBytes(StandardCharsets.UTF_8);
+            ensure(2 + name.length);
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+        }
+        for (int id = 0; id < board.NUMTERRITORIES; id++) {
+            Territory territory = board.getTerritoryById(id);
+            ensure(2);
+            buffer.put((byte) indexOf(territory.getOwner()));
+            buffer.put((byte) Math.max(0, territory.getDice()));
+        }
+    }
+
+    /**
+     * Method: recordAttack
+     * Purpose: Records one resolved attack.
+     *
+     * @param turn The turn number (input).
+     * @param attacker The attacking territory id (input).
+     * @param defender The defending territory id (input).
+     * @param attackRoll Sum of the attacker's dice (input).
+     * @param defenseRoll Sum of the defender's dice (input).
+     * @throws IOException if the buffer cannot be flushed.
+     */
+    public void recordAttack(int turn, int attacker, int defender, int attackRoll, int defenseRoll)
+            throws IOException {
+        ensure(MAX_FIXED_EVENT);
+        buffer.put(attackRoll > defenseRoll ? ATTACK_WON : ATTACK_LOST);
+        putVarInt(turn);
+        putVarInt(attacker);
+        putVarInt(defender);
+        putVarInt(attackRoll);
+        putVarInt(defenseRoll);
+    }
+
+    /**
+     * Method: recordAward
+     * Purpose: Records the dice added to a player's territories at the end of a turn.
+     *
+     * @param turn The turn number (input).
+     * @param player The player awarded dice (input).
+     * @param territories Ids of the territories that received dice (input).
+     * @param added Dice added to each territory, parallel to territories (input).
+     * @param count Number of entries used in the two arrays (input).
+     * @throws IOException if the buffer cannot be flushed.
+     */
+    public void recordAward(int turn, Player player, int[] territories, int[] added, int count)
+            throws IOException {
+        ensure(MAX_FIXED_EVENT);
+        buffer.put(AWARD);
+        putVarInt(turn);
+        buffer.put((byte) indexOf(player));
+        putVarInt(count);
+        for (int i = 0; i < count; i++) {
+            ensure(6);
+            putVarInt(territories[i]);
+            buffer.put((byte) added[i]);
+        }
+    }
+
+    /**
+     * Method: recordEnd
+     * Purpose: Records the end of the game.
+     *
+     * @param turn The final turn number (input).
+     * @param winner The winner, or null if the game was abandoned (input).
+     * @throws IOException if the buffer cannot be flushed.
+     */
+    public void recordEnd(int turn, Player winner) throws IOException {
+        ensure(MAX_FIXED_EVENT);
+        buffer.put(END);
+        putVarInt(turn);
+        buffer.put((byte) indexOf(winner));
+    }
+
+    /**
+     * Method: flush
+     * Purpose: Writes all buffered bytes to the file.
+     *
+     * @throws IOException if writing fails.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Index of a player on the board, or NO_OWNER
+    private int indexOf(Player player) {
+        if (player == null) {
+            return NO_OWNER;
+        }
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i) == player) {
+                return i;
+            }
+        }
+        return NO_OWNER;
+    }
+
+    // Flushes if fewer than the given number of bytes are free
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    // Unsigned LEB128 encoding, 1 byte for values below 128
+    private void putVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
@@ -0,0 +1,79 @@
+import java.io.PrintStream;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class: StrategyStats
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: Latency histograms and timeout counts for the three Strategy calls, kept
+ * per strategy name in a process-wide registry so results from many players and
+ * games can be reported together at the end of a tournament.
+ */
+public class StrategyStats {
+    private static final ConcurrentHashMap<String, StrategyStats> registry = new ConcurrentHashMap<>();
+
+    private final String name; // Strategy name these stats belong to
+    final LatencyHistogram willAttack = new LatencyHistogram();
+    final LatencyHistogram getAttacker = new LatencyHistogram();
+    final LatencyHistogram getDefender = new LatencyHistogram();
+    final LongAdder timeouts = new LongAdder(); // Decisions that ran past the budget
+    final LongAdder forfeits = new LongAdder(); // Moves forfeited, including timeouts
+
+    private StrategyStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Method: forStrategy
+     * Purpose: Returns the stats for a strategy name, creating them on first use.
+     *
+     * @param name The strategy name, normally its class name (input).
+     * @return The shared stats object for that name.
+     */
+    public static StrategyStats forStrategy(String name) {
+        return registry.computeIfAbsent(name, StrategyStats::new);
+    }
+
+    /**
+     * Method: reset
+     * Purpose: Forgets all recorded stats.
+     */
+    public static void reset() {
+        registry.clear();
+    }
+
+    /**
+     * Method: report
+     * Purpose: Prints p50/p99/max latency per call and timeout counts for every strategy.
+     *
+     * @param out The stream to print to (input).
+     */
+    public static void report(PrintStream out) {
+        out.println("Strategy decision latency (microseconds):");
+        out.printf("  %-24s %-12s %10s %10s %10s %10s%n", "strategy", "call", "count", "p50", "p99", "max");
+        for (Entry<String, StrategyStats> entry : new TreeMap<>(registry).entrySet()) {
+            StrategyStats stats = entry.getValue();
+            printRow(out, entry.getKey(), "willAttack", stats.willAttack);
+            printRow(out, entry.getKey(), "getAttacker", stats.getAttacker);
+            printRow(out, entry.getKey(), "getDefender", stats.getDefender);
+            out.printf("  %-24s timeouts: %d, forfeited moves: %d%n", entry.getKey(),
+                    stats.timeouts.sum(), stats.forfeits.sum());
+        }
+    }
+
+    public String getName() { return name; }
+    public LatencyHistogram getWillAttackLatency() { return willAttack; }
+    public LatencyHistogram getAttackerLatency() { return getAttacker; }
+    public LatencyHistogram getDefenderLatency() { return getDefender; }
+    public long getTimeouts() { return timeouts.sum(); }
+    public long getForfeits() { return forfeits.sum(); }
+
+    private static void printRow(PrintStream out, String strategy, String call, LatencyHistogram histogram) {
+        out.printf("  %-24s %-12s %10d %10.1f %10.1f %10.1f%n", strategy, call, histogram.getCount(),
+                histogram.percentile(0.50) / 1e3, histogram.percentile(0.99) / 1e3, histogram.getMax() / 1e3);
+    }
+}
@@ -112,10 +112,16 @@ public class Territory {
      *
      * @param owner The new owner (Player) of this territory
      * Precondition: Owner should be a valid Player object
-     * Postcondition: The owner of this territory is updated
+     * Postcondition: The owner of this territory is updated and the map is told
      */
     public void setOwner(Player owner) {
-        this.owner = owner;
+        if (owner != this.owner) {
+            Player previous = this.owner;
+            this.owner = owner;
+            if (map != null) {
+                map.ownershipChanged(this, previous);
+            }
+        }
     }
 
     /**
@@ -126,7 +132,7 @@ public class Territory {
      * Postcondition: Returns the calculated row number
      */
     public int getRow() {
-        return idNum / 8;
+        return idNum / columns();
     }
 
     /**
@@ -137,6 +143,11 @@ public class Territory {
      * Postcondition: Returns the calculated column number
      */
     public int getCol() {
-        return idNum % 8;
+        return idNum % columns();
+    }
+
+    // The width of the board, 8 for a territory with no map
+    private int columns() {
+        return map != null ? map.COLUMNS : 8;
     }
 }
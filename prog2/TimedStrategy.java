@@ -0,0 +1,287 @@
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Class: TimedStrategy
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: Wraps another Strategy to measure and bound its decisions. Each call's
+ * latency goes into the StrategyStats for the wrapped strategy. With a time budget
+ * set, willAttack(), getAttacker() and getDefender() run together on a daemon
+ * thread; if they do not finish within the budget the move is forfeited (willAttack
+ * returns false) and the player stays forfeited until the late decision finishes.
+ * The decision thread is given a copy of the board, never the live Map, so a late
+ * decision can keep reading it while the game goes on; the chosen territories are
+ * looked up by ID on the live board.
+ *
+ * If the wrapped strategy is a TurnPlanner, getPlanner() gives engines that plan
+ * turns (HeadlessGame) a planner that forwards to it. A plan reads the live board
+ * as it goes, so it runs on the game thread: each step (planning plus one attack)
+ * is timed as a willAttack, and a step that ran past the budget is forfeited and
+ * ends the turn.
+ */
+public class TimedStrategy implements Strategy {
+    private static final ExecutorService deciders = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "strategy-decision");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Strategy delegate; // The strategy being timed
+    private final long budgetNanos; // Time allowed per decision; 0 means unlimited
+    private final StrategyStats stats; // Where latencies are recorded
+    private final TimedPlanner planner; // Planner view of a TurnPlanner delegate, or null
+
+    private volatile boolean busy; // True from submitting a decision until it has finished
+    private Territory attacker; // Attacker chosen by the last decision
+    private Territory defender; // Defender chosen by the last decision
+
+    /**
+     * Constructor: Wraps a strategy with a per-decision time budget.
+     *
+     * @param delegate The strategy to wrap.
+     * @param budgetMillis Milliseconds allowed per decision; 0 or less means no limit.
+     * Preconditions: delegate is not null.
+     */
+    public TimedStrategy(Strategy delegate, long budgetMillis) {
+        this.delegate = delegate;
+        this.budgetNanos = Math.max(0, TimeUnit.MILLISECONDS.toNanos(budgetMillis));
+        this.stats = StrategyStats.forStrategy(delegate.getClass().getName());
+        this.planner = delegate instanceof TurnPlanner ? new TimedPlanner((TurnPlanner) delegate) : null;
+    }
+
+    /**
+     * Method: install
+     * Purpose: Replaces a player's strategy with a timed wrapper around it.
+     *
+     * @param player The player whose strategy is wrapped (input/output).
+     * @param budgetMillis Milliseconds allowed per decision; 0 or less means no limit.
+     * @return The installed wrapper.
+     */
+    public static TimedStrategy install(Player player, long budgetMillis) {
+        TimedStrategy timed = new TimedStrategy(player.getStrategy(), budgetMillis);
+        player.setStrategy(timed);
+        return timed;
+    }
+
+    public Strategy getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Method: getPlanner
+     * Purpose: Gives the wrapped strategy's TurnPlanner, timed like willAttack.
+     *
+     * @return A planner forwarding to the wrapped strategy, or null if it is not a
+     *         TurnPlanner.
+     */
+    public TurnPlanner getPlanner() {
+        return planner;
+    }
+
+    public void setPlayer(Player whom) {
+        delegate.setPlayer(whom);
+    }
+
+    /**
+     * Method: willAttack
+     * Purpose: Asks the wrapped strategy for its decision, within the time budget.
+     *
+     * @param board The current board (input).
+     * @return True if the wrapped strategy attacks in time, false otherwise.
+     */
+    public boolean willAttack(Map board) {
+        attacker = null;
+        defender = null;
+
+        if (budgetNanos == 0) {
+            return store(decide(board));
+        }
+
+        // The wrapped strategy is still busy with a previous decision; it must not be
+        // called again concurrently, so this move is forfeited as well. A cancelled
+        // Future reports done at once, so the decision itself clears busy when it ends.
+        if (busy) {
+            stats.forfeits.increment();
+            return false;
+        }
+
+        Map snapshot = board.copy();
+        AtomicBoolean started = new AtomicBoolean();
+        busy = true;
+        Future<Territory[]> decision = deciders.submit(() -> {
+            if (!started.compareAndSet(false, true)) {
+                return null; // Given up on before it started
+            }
+            try {
+                return decide(snapshot);
+            } finally {
+                busy = false;
+            }
+        });
+        try {
+            return store(onBoard(board, decision.get(budgetNanos, TimeUnit.NANOSECONDS)));
+        } catch (TimeoutException e) {
+            abandon(decision, started);
+            stats.timeouts.increment();
+            stats.forfeits.increment();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(decision, started);
+            stats.forfeits.increment();
+            return false;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public Territory getAttacker() {
+        return attacker;
+    }
+
+    public Territory getDefender() {
+        return defender;
+    }
+
+    // Runs one full decision against the wrapped strategy, timing each call.
+    // Returns null if it will not attack, or {attacker, defender} otherwise.
+    private Territory[] decide(Map board) {
+        long start = System.nanoTime();
+        boolean attack = delegate.willAttack(board);
+        long afterWill = System.nanoTime();
+        stats.willAttack.record(afterWill - start);
+        if (!attack) {
+            return null;
+        }
+
+        Territory from = delegate.getAttacker();
+        long afterAttacker = System.nanoTime();
+        stats.getAttacker.record(afterAttacker - afterWill);
+
+        Territory to = delegate.getDefender();
+        stats.getDefender.record(System.nanoTime() - afterAttacker);
+        return new Territory[] { from, to };
+    }
+
+    // Interrupts a late decision; one that never started will not run, so it is no
+    // longer busy
+    private void abandon(Future<Territory[]> decision, AtomicBoolean started) {
+        decision.cancel(true);
+        if (started.compareAndSet(false, true)) {
+            busy = false;
+        }
+    }
+
+    // Finds a decision's territories on the live board, or null for no attack
+    private static Territory[] onBoard(Map board, Territory[] decision) {
+        if (decision == null) {
+            return null;
+        }
+        Territory[] live = new Territory[2];
+        for (int i = 0; i < 2; i++) {
+            int id = decision[i] == null ? -1 : decision[i].getIdNum();
+            live[i] = id >= 0 && id < board.NUMTERRITORIES ? board.getTerritoryById(id) : null;
+        }
+        return live;
+    }
+
+    // Keeps the attacker/defender of a finished decision
+    private boolean store(Territory[] decision) {
+        if (decision == null) {
+            return false;
+        }
+        attacker = decision[0];
+        defender = decision[1];
+        return true;
+    }
+
+    // Forwards to a TurnPlanner delegate, timing each step of its plan. It is also
+    // the iterator over the current plan, since a player has one plan at a time.
+    private class TimedPlanner implements TurnPlanner, Iterator<Attack> {
+        private final TurnPlanner delegate; // The planner being timed
+        private Iterator<Attack> plan; // The current turn's plan, or null when it has ended
+        private long stepNanos; // Time spent on the current step so far
+
+        TimedPlanner(TurnPlanner delegate) {
+            this.delegate = delegate;
+        }
+
+        public void setPlayer(Player whom) {
+            TimedStrategy.this.setPlayer(whom);
+        }
+
+        public boolean willAttack(Map board) {
+            return TimedStrategy.this.willAttack(board);
+        }
+
+        public Territory getAttacker() {
+            return TimedStrategy.this.getAttacker();
+        }
+
+        public Territory getDefender() {
+            return TimedStrategy.this.getDefender();
+        }
+
+        public Iterator<Attack> planTurn(Map board) {
+            long start = System.nanoTime();
+            plan = delegate.planTurn(board);
+            stepNanos = System.nanoTime() - start;
+            return this;
+        }
+
+        public void attackResolved(Attack attack, boolean won) {
+            delegate.attackResolved(attack, won);
+        }
+
+        public boolean hasNext() {
+            if (plan == null) {
+                return false;
+            }
+            long start = System.nanoTime();
+            boolean more = plan.hasNext();
+            stepNanos += System.nanoTime() - start;
+            if (!more) {
+                endStep();
+                plan = null;
+            }
+            return more;
+        }
+
+        // Returns null, ending the turn, if the step ran past the budget
+        public Attack next() {
+            long start = System.nanoTime();
+            Attack attack = plan.next();
+            stepNanos += System.nanoTime() - start;
+            if (endStep()) {
+                return attack;
+            }
+            plan = null;
+            stats.timeouts.increment();
+            stats.forfeits.increment();
+            return null;
+        }
+
+        // Records the step's time; true if it was within the budget
+        private boolean endStep() {
+            stats.willAttack.record(stepNanos);
+            boolean inTime = budgetNanos == 0 || stepNanos <= budgetNanos;
+            stepNanos = 0;
+            return inTime;
+        }
+    }
+}
@@ -0,0 +1,433 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class: TournamentCoordinator
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: Shares a headless tournament among several worker JVMs. The coordinator
+ * listens on a localhost socket and splits the games into batches. Each game is a
+ * seed and a lineup, the strategy in each seat. A TournamentWorker connects, is
+ * sent a batch, plays it and streams back one winner seat and turn count per game;
+ * then it is sent the next batch. While it plays, the worker reports each game it
+ * finishes, so the timeout only has to cover one game, however large the batch. If
+ * a worker disconnects, crashes or sends nothing for longer than the timeout, its
+ * batch goes back to the front of the queue for another worker. A batch's results count only once, when the whole batch has
+ * arrived. Game g always gets the same seed and lineup, so with strategies that
+ * make no random choices of their own the totals do not depend on which worker
+ * played what. The totals and the games per second across all workers are
+ * reported at the end.
+ *
+ * Protocol (DataOutputStream, big-endian): the worker sends HELLO and a name. The
+ * coordinator sends BATCH, batch id, rows, columns, victims, maxDice, turn limit,
+ * the lineup size and names, the game count and each game's index and seed, or
+ * DONE. The worker sends PROGRESS, batch id and the games finished so far as each
+ * game ends, then answers RESULTS, batch id, game count and, per game, a byte
+ * winner seat (-1 for a draw) and an int turn count; or, if a game threw, FAILED,
+ * batch id and a message, and waits for the next batch.
+ *
+ * A batch that fails, by a FAILED answer or by losing its worker, is tried again up
+ * to the attempt limit. After that it is recorded as errored: its games are left out
+ * of the totals and listed in the report, so one batch that always throws cannot
+ * keep the tournament from finishing.
+ */
+public class TournamentCoordinator {
+    static final int HELLO = 1; // Worker -> coordinator: worker name follows
+    static final int BATCH = 2; // Coordinator -> worker: a batch of games
+    static final int RESULTS = 3; // Worker -> coordinator: one batch's results
+    static final int DONE = 4; // Coordinator -> worker: no more work
+    static final int FAILED = 5; // Worker -> coordinator: a batch threw; batch id and message follow
+    static final int PROGRESS = 6; // Worker -> coordinator: a game finished; batch id and games done follow
+    private static final int ERRORED = -2; // winnerSeat of a game in a batch that never succeeded
+
+    public static final int DEFAULT_PORT = 34500;
+
+    private final String[] strategies; // Strategy class names, in seat order for game 0
+    private final int games; // Games in the tournament
+    private final long seed; // Base seed of every game
+    private int rows = 8, columns = 8, victims = 8, maxDice = 8; // Board parameters
+    private int turnLimit = 2000; // Turns before a game is a draw
+    private long batchTimeoutMillis = 60000; // Silence (no game finished) after which a worker is given up on
+    private int maxAttempts = 3; // Failed attempts after which a batch is recorded as errored
+
+    private final LinkedBlockingDeque<Batch> queue = new LinkedBlockingDeque<>();
+    private final boolean[] finished; // finished[b]: batch b's results are in
+    private final CountDownLatch remaining; // Batches not yet finished
+    private final int[] winnerSeat; // By game index: winning seat, -1 for a draw
+    private final int[] turns; // By game index: turns played
+    private final AtomicInteger reassigned = new AtomicInteger(); // Batches handed out again
+    private final List<String> errors = new ArrayList<>(); // One line per errored batch, guarded by this
+    private final AtomicInteger workers = new AtomicInteger(); // Workers that have connected
+    private final AtomicLong turnsPlayed = new AtomicLong();
+    private long startNanos; // When the first batch was handed out
+    private long elapsedNanos; // Wall time of the tournament
+
+    // Consecutive games handed out together
+    private static final class Batch {
+        final int id; // Batch number
+        final int first; // Index of the first game
+        final int count; // Number of games
+        int attempts; // Failed attempts so far, guarded by the coordinator
+
+        Batch(int id, int first, int count) {
+            this.id = id;
+            this.first = first;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Constructor: Prepares a tournament.
+     *
+     * @param strategies The strategy class names, one per seat (input).
+     * @param games The number of games (input).
+     * @param batchSize The number of games per batch (input).
+     * @param seed The base seed (input).
+     */
+    public TournamentCoordinator(List<String> strategies, int games, int batchSize, long seed) {
+        this.strategies = strategies.toArray(new String[0]);
+        this.games = games;
+        this.seed = seed;
+        winnerSeat = new int[games];
+        turns = new int[games];
+        int batches = (games + batchSize - 1) / batchSize;
+        finished = new boolean[batches];
+        for (int b = 0; b < batches; b++) {
+            queue.add(new Batch(b, b * batchSize, Math.min(batchSize, games - b * batchSize)));
+        }
+        remaining = new CountDownLatch(batches);
+    }
+
+    public void setBoard(int rows, int columns, int victims, int maxDice) {
+        this.rows = rows;
+        this.columns = columns;
+        this.victims = victims;
+        this.maxDice = maxDice;
+    }
+
+    public void setTurnLimit(int turnLimit) { this.turnLimit = turnLimit; }
+    public void setBatchTimeoutMillis(long batchTimeoutMillis) { this.batchTimeoutMillis = batchTimeoutMillis; }
+    public void setMaxAttempts(int maxAttempts) { this.maxAttempts = Math.max(1, maxAttempts); }
+    public int getReassigned() { return reassigned.get(); }
+    public int getWorkers() { return workers.get(); }
+
+    /**
+     * Method: lineup
+     * Purpose: Gives the seating of a game. Seats rotate with the game index so that
+     * every strategy moves first equally often.
+     *
+     * @param game The game index (input).
+     * @return The strategy index in each seat.
+     */
+    public int[] lineup(int game) {
+        int[] seats = new int[strategies.length];
+        for (int seat = 0; seat < seats.length; seat++) {
+            seats[seat] = (seat + game) % strategies.length;
+        }
+        return seats;
+    }
+
+    /**
+     * Method: gameSeed
+     * @param game The game index (input).
+     * @return The seed of the game's board and dice (SplitMix64 of the base seed).
+     */
+    public long gameSeed(int game) {
+        long z = seed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Method: run
+     * Purpose: Serves workers until every batch is finished.
+     *
+     * @param server A bound server socket (input).
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void run(ServerSocket server) throws InterruptedException {
+        Thread acceptor = new Thread(() -> accept(server), "coordinator-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        remaining.await();
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Method: printResults
+     * Purpose: Prints each strategy's wins and the throughput across all workers,
+     * then any batches that errored, whose games are not counted.
+     *
+     * @param out The stream to print to (input).
+     */
+    public synchronized void printResults(PrintStream out) {
+        int[] wins = new int[strategies.length];
+        int draws = 0;
+        int played = 0;
+        for (int game = 0; game < games; game++) {
+            if (winnerSeat[game] == ERRORED) {
+                continue;
+            }
+            played++;
+            if (winnerSeat[game] < 0) {
+                draws++;
+            } else {
+                wins[lineup(game)[winnerSeat[game]]]++;
+            }
+        }
+        for (int s = 0; s < strategies.length; s++) {
+            out.printf("%-28s %6d wins (%.1f%%)%n", strategies[s], wins[s], 100.0 * wins[s] / Math.max(1, played));
+        }
+        double seconds = elapsedNanos / 1e9;
+        out.printf("%d games (%d draws), %d turns on %d workers in %.2f s: %.1f games/sec, %d batches reassigned%n",
+                played, draws, turnsPlayed.get(), workers.get(), seconds, played / seconds, reassigned.get());
+        if (!errors.isEmpty()) {
+            out.printf("%d batches (%d games) errored after %d attempts and are not counted:%n", errors.size(),
+                    games - played, maxAttempts);
+            for (String error : errors) {
+                out.println("  " + error);
+            }
+        }
+    }
+
+    public synchronized int getErroredBatches() {
+        return errors.size();
+    }
+
+    // Starts a handler thread for every worker that connects
+    private void accept(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> serve(socket), "coordinator-worker");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return; // Server closed
+            }
+        }
+    }
+
+    // Hands batches to one worker until none are left, requeuing the batch in hand
+    // if the worker fails
+    private void serve(Socket socket) {
+        String name = socket.getRemoteSocketAddress().toString();
+        Batch batch = null;
+        try {
+            socket.setSoTimeout((int) batchTimeoutMillis);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (in.readByte() != HELLO) {
+                throw new IOException("Expected HELLO");
+            }
+            name = in.readUTF();
+            workers.incrementAndGet();
+            while (remaining.getCount() > 0) {
+                batch = queue.pollFirst(100, TimeUnit.MILLISECONDS);
+                if (batch == null) {
+                    continue; // Wait for a failed worker's batch or the end
+                }
+                synchronized (this) {
+                    if (startNanos == 0) {
+                        startNanos = System.nanoTime();
+                    }
+                }
+                send(out, batch);
+                receive(in, batch);
+                batch = null;
+            }
+            out.writeByte(DONE);
+            out.flush();
+        } catch (IOException | InterruptedException e) {
+            if (batch != null) {
+                failed(batch, "worker " + name + " failed (" + e + ")");
+            }
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // The worker is gone either way
+            }
+        }
+    }
+
+    // Requeues a batch that failed, or records it as errored once it has used up its attempts
+    private void failed(Batch batch, String reason) {
+        synchronized (this) {
+            if (finished[batch.id]) {
+                return; // Another worker already finished it
+            }
+            if (++batch.attempts < maxAttempts) {
+                queue.addFirst(batch);
+                reassigned.incrementAndGet();
+                System.err.println("Batch " + batch.id + " attempt " + batch.attempts + ": " + reason + "; requeued");
+                return;
+            }
+            finished[batch.id] = true;
+            for (int i = 0; i < batch.count; i++) {
+                winnerSeat[batch.first + i] = ERRORED;
+            }
+            errors.add("batch " + batch.id + " (games " + batch.first + "-" + (batch.first + batch.count - 1) + "): "
+                    + reason);
+            System.err.println("Batch " + batch.id + " errored after " + batch.attempts + " attempts: " + reason);
+        }
+        remaining.countDown();
+    }
+
+    private void send(DataOutputStream out, Batch batch) throws IOException {
+        out.writeByte(BATCH);
+        out.writeInt(batch.id);
+        out.writeInt(rows);
+        out.writeInt(columns);
+        out.writeInt(victims);
+        out.writeInt(maxDice);
+        out.writeInt(turnLimit);
+        out.writeInt(strategies.length);
+        for (String strategy : strategies) {
+            out.writeUTF(strategy);
+        }
+        out.writeInt(batch.count);
+        for (int game = batch.first; game < batch.first + batch.count; game++) {
+            out.writeInt(game);
+            out.writeLong(gameSeed(game));
+        }
+        out.flush();
+    }
+
+    // Reads a whole batch of results, then records it unless another worker already did.
+    // A FAILED answer counts as a failed attempt, and the worker stays in service.
+    // PROGRESS messages only show that the worker is alive; each read restarts the timeout
+    private void receive(DataInputStream in, Batch batch) throws IOException {
+        byte tag = in.readByte();
+        while (tag == PROGRESS) {
+            if (in.readInt() != batch.id) {
+                throw new IOException("Progress does not match batch " + batch.id);
+            }
+            in.readInt(); // Games finished so far
+            tag = in.readByte();
+        }
+        if (tag == FAILED && in.readInt() == batch.id) {
+            failed(batch, in.readUTF());
+            return;
+        }
+        if (tag != RESULTS || in.readInt() != batch.id || in.readInt() != batch.count) {
+            throw new IOException("Results do not match batch " + batch.id);
+        }
+        int[] seats = new int[batch.count];
+        int[] counts = new int[batch.count];
+        for (int i = 0; i < batch.count; i++) {
+            seats[i] = in.readByte();
+            counts[i] = in.readInt();
+        }
+        synchronized (this) {
+            if (finished[batch.id]) {
+                return;
+            }
+            finished[batch.id] = true;
+            for (int i = 0; i < batch.count; i++) {
+                winnerSeat[batch.first + i] = seats[i];
+                turns[batch.first + i] = counts[i];
+                turnsPlayed.addAndGet(counts[i]);
+            }
+        }
+        remaining.countDown();
+    }
+
+    /**
+     * Method: main
+     * Purpose: Runs a sharded tournament.
+     * Usage: java TournamentCoordinator [--port p] [--games n] [--batch n] [--seed n]
+     *        [--workers n] [--worker-threads n] [--budget ms] [--timeout ms] [--attempts n]
+     *        strategy...
+     * With --workers n, n worker JVMs are started on this machine with this JVM's
+     * class path, each timing strategy decisions with the given --budget; otherwise
+     * start TournamentWorker processes by hand. Worker options
+     * after "--" (e.g. -- --crash-after 3) are passed to the first started worker,
+     * to try out the recovery from a crash. Exits with status 1 if any batch errored.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = DEFAULT_PORT;
+        int games = 2000;
+        int batch = 50;
+        long seed = 345;
+        int spawn = 0;
+        int workerThreads = 1;
+        long timeout = 60000;
+        long budget = 0;
+        int attempts = 3;
+        List<String> names = new ArrayList<>();
+        List<String> firstWorkerOptions = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--batch": batch = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--workers": spawn = Integer.parseInt(args[++i]); break;
+                case "--worker-threads": workerThreads = Integer.parseInt(args[++i]); break;
+                case "--timeout": timeout = Long.parseLong(args[++i]); break;
+                case "--budget": budget = Long.parseLong(args[++i]); break;
+                case "--attempts": attempts = Integer.parseInt(args[++i]); break;
+                case "--":
+                    while (++i < args.length) {
+                        firstWorkerOptions.add(args[i]);
+                    }
+                    break;
+                default: names.add(args[i]);
+            }
+        }
+        while (names.size() < 2) {
+            names.add("ComputerStrategy");
+        }
+
+        TournamentCoordinator coordinator = new TournamentCoordinator(names, games, batch, seed);
+        coordinator.setBatchTimeoutMillis(timeout);
+        coordinator.setMaxAttempts(attempts);
+        List<Process> processes = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            for (int w = 0; w < spawn; w++) {
+                List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+                        "TournamentWorker", "--port", Integer.toString(server.getLocalPort()),
+                        "--threads", Integer.toString(workerThreads), "--budget", Long.toString(budget)));
+                if (w == 0) {
+                    command.addAll(firstWorkerOptions);
+                }
+                processes.add(new ProcessBuilder(command).inheritIO().start());
+            }
+            System.out.println("Coordinator listening on port " + server.getLocalPort());
+            coordinator.run(server);
+        } catch (SocketException e) {
+            System.err.println("Cannot listen on port " + port + ": " + e.getMessage());
+            return;
+        } finally {
+            for (Process process : processes) {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroy();
+                }
+            }
+        }
+        coordinator.printResults(System.out);
+        if (coordinator.getErroredBatches() > 0) {
+            System.exit(1);
+        }
+    }
+}
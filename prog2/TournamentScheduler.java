@@ -0,0 +1,390 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class: TournamentScheduler
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: Ranks strategies with as few games as it can. Rather than playing a fixed
+ * number of games for every pairing, as Bones's tournament mode does, it plays
+ * two-player games in rounds. After each round it fits Elo-scale ratings to all the
+ * results so far, and gives a confidence interval to each rating. The next round is
+ * played in parallel, and only by pairings whose order is still uncertain: those
+ * whose rating difference is within z standard errors, or that have not yet played
+ * the minimum number of games. Scheduling stops once every pairing is decided or has
+ * played the maximum number of games.
+ *
+ * Ratings are the Bradley-Terry maximum likelihood fit, 400 * log10 of strength and
+ * centered on 0, and are fitted to decisive games only. A game that reaches the turn
+ * limit is a draw; draws are counted and reported beside the ratings but left out of
+ * the fit, so a pairing that stalls cannot pull both ratings toward each other. Each
+ * pairing also holds one virtual drawn game, so a strategy that never wins still
+ * gets a finite rating. Standard errors come from the Fisher
+ * information of the fit. Seats alternate so neither strategy always moves first.
+ * Each game's board and dice come from that game's own seed, so the games, though
+ * played in parallel, are the same from run to run with the same seed.
+ */
+public class TournamentScheduler implements AutoCloseable {
+    public static final double DEFAULT_Z = 1.96; // Two-sided 95% confidence
+    private static final double ELO = 400 / Math.log(10); // Elo points per unit of log strength
+
+    private final String[] names; // Strategy class names
+    private final int rows, columns, victims, maxDice; // Board parameters
+    private final long seed; // Seed for boards and dice
+    private final ExecutorService workers; // Threads playing games
+    private final CachingStrategyLoader loader = CachingStrategyLoader.shared();
+
+    private double z = DEFAULT_Z; // Standard errors that separate two ratings
+    private int batchSize = 16; // Games per uncertain pairing per round
+    private int minGames = 16; // Games every pairing plays before it can be decided
+    private int maxGames = 1000; // Games after which a pairing is no longer scheduled
+    private int turnLimit = 2000; // Turns before a game is scored as a draw
+    private long budgetMillis; // Time allowed per strategy decision; 0 means unlimited
+
+    private final double[][] points; // points[i][j]: wins of i against j
+    private final int[][] draws; // draws[i][j] == draws[j][i]: games between i and j that hit the turn limit
+    private final int[][] games; // games[i][j] == games[j][i]: games played between i and j
+    private final double[] ratings; // Elo-scale rating of each strategy
+    private final double[] errors; // Standard error of each rating
+    private long gamesPlayed; // Games played so far, all pairings
+    private int rounds; // Rounds played so far
+
+    /**
+     * Constructor: Prepares a tournament.
+     *
+     * @param names The strategy class names, at least two (input).
+     * @param rows Number of rows in the game board (input).
+     * @param columns Number of columns in the game board (input).
+     * @param victims Number of territories marked as inactive (input).
+     * @param maxDice Maximum number of dice allowed per territory (input).
+     * @param threads Number of games played at once (input).
+     * @param seed Seed for boards and dice (input).
+     */
+    public TournamentScheduler(List<String> names, int rows, int columns, int victims, int maxDice, int threads,
+            long seed) {
+        if (names.size() < 2) {
+            throw new IllegalArgumentException("A tournament needs at least two strategies");
+        }
+        this.names = names.toArray(new String[0]);
+        this.rows = rows;
+        this.columns = columns;
+        this.victims = victims;
+        this.maxDice = maxDice;
+        this.seed = seed;
+        workers = Executors.newFixedThreadPool(threads);
+        points = new double[this.names.length][this.names.length];
+        games = new int[this.names.length][this.names.length];
+        draws = new int[this.names.length][this.names.length];
+        ratings = new double[this.names.length];
+        errors = new double[this.names.length];
+    }
+
+    public void setZ(double z) { this.z = z; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    public void setMinGames(int minGames) { this.minGames = minGames; }
+    public void setMaxGames(int maxGames) { this.maxGames = maxGames; }
+    public void setTurnLimit(int turnLimit) { this.turnLimit = turnLimit; }
+    public void setDecisionBudgetMillis(long budgetMillis) { this.budgetMillis = budgetMillis; }
+    public long getGamesPlayed() { return gamesPlayed; }
+    public int getRounds() { return rounds; }
+    public int getGames(int i, int j) { return games[i][j]; }
+    public double getRating(int i) { return ratings[i]; }
+    public double getError(int i) { return errors[i]; }
+
+    /**
+     * Method: run
+     * Purpose: Plays rounds until no pairing is uncertain.
+     *
+     * @throws ClassNotFoundException if a strategy cannot be loaded.
+     * @throws InterruptedException if interrupted while waiting for a round.
+     * Postconditions: The ratings and errors describe every game played.
+     */
+    public void run() throws ClassNotFoundException, InterruptedException {
+        for (String name : names) {
+            loader.newStrategy(name); // Fail now rather than in a worker
+        }
+        fitRatings();
+        List<int[]> pairings;
+        while (!(pairings = uncertainPairings()).isEmpty()) {
+            playRound(pairings);
+            fitRatings();
+        }
+    }
+
+    /**
+     * Method: runFixed
+     * Purpose: Plays the same number of games for every pairing, as Bones does, for
+     * comparison with run().
+     *
+     * @param gamesPerPairing Games for each pairing (input).
+     */
+    public void runFixed(int gamesPerPairing) throws ClassNotFoundException, InterruptedException {
+        List<int[]> pairings = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            for (int j = i + 1; j < names.length; j++) {
+                pairings.add(new int[] { i, j });
+            }
+        }
+        int saved = batchSize;
+        batchSize = gamesPerPairing;
+        try {
+            playRound(pairings);
+        } finally {
+            batchSize = saved;
+        }
+        fitRatings();
+    }
+
+    /**
+     * Method: isUncertain
+     * @return True if the order of strategies i and j is not yet known at the
+     *         chosen confidence, or they have played fewer than the minimum games.
+     */
+    public boolean isUncertain(int i, int j) {
+        double error = Math.sqrt(errors[i] * errors[i] + errors[j] * errors[j]);
+        return games[i][j] < minGames || Math.abs(ratings[i] - ratings[j]) < z * error;
+    }
+
+    /**
+     * Method: ranking
+     * @return Strategy indexes from the highest rating to the lowest.
+     */
+    public int[] ranking() {
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(ratings[b], ratings[a]));
+        int[] ranks = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            ranks[i] = order[i];
+        }
+        return ranks;
+    }
+
+    /**
+     * Method: printRatings
+     * Purpose: Prints the ranking with confidence intervals, the games played and how
+     * many of them were draws, which the ratings do not count.
+     *
+     * @param out The stream to print to (input).
+     */
+    public void printRatings(PrintStream out) {
+        out.printf("%d games in %d rounds%n", gamesPlayed, rounds);
+        int place = 1;
+        for (int i : ranking()) {
+            int played = 0;
+            int drawn = 0;
+            for (int j = 0; j < names.length; j++) {
+                played += games[i][j];
+                drawn += draws[i][j];
+            }
+            out.printf("%2d. %-28s %7.1f +/- %5.1f  (%d games, %d draws)%n", place++, names[i], ratings[i],
+                    z * errors[i], played, drawn);
+        }
+    }
+
+    /**
+     * Method: close
+     * Purpose: Stops the worker threads.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    // The pairings that still need games
+    private List<int[]> uncertainPairings() {
+        List<int[]> pairings = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            for (int j = i + 1; j < names.length; j++) {
+                if (games[i][j] < maxGames && isUncertain(i, j)) {
+                    pairings.add(new int[] { i, j });
+                }
+            }
+        }
+        return pairings;
+    }
+
+    // Plays batchSize games for every pairing at once, then records the results
+    private void playRound(List<int[]> pairings) throws InterruptedException {
+        List<int[]> played = new ArrayList<>();
+        List<Callable<Double>> round = new ArrayList<>();
+        for (int[] pairing : pairings) {
+            int count = Math.min(batchSize, Math.max(1, maxGames - games[pairing[0]][pairing[1]]));
+            for (int k = 0; k < count; k++) {
+                boolean swap = (games[pairing[0]][pairing[1]] + k) % 2 == 1;
+                long gameSeed = seed + 0x9E3779B97F4A7C15L * (gamesPlayed + round.size() + 1);
+                played.add(pairing);
+                round.add(() -> playGame(pairing[0], pairing[1], swap, gameSeed));
+            }
+        }
+        List<Future<Double>> results = workers.invokeAll(round);
+        for (int k = 0; k < results.size(); k++) {
+            int i = played.get(k)[0];
+            int j = played.get(k)[1];
+            double score;
+            try {
+                score = results.get(k).get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Game between " + names[i] + " and " + names[j] + " failed",
+                        e.getCause());
+            }
+            if (score == 0.5) {
+                draws[i][j]++;
+                draws[j][i]++;
+            } else {
+                points[i][j] += score;
+                points[j][i] += 1 - score;
+            }
+            games[i][j]++;
+            games[j][i]++;
+        }
+        gamesPlayed += results.size();
+        rounds++;
+    }
+
+    // Plays one game and returns the first strategy's score: 1, 1/2 or 0
+    private double playGame(int first, int second, boolean swap, long gameSeed) throws ClassNotFoundException {
+        GameContext context = new GameContext(names[first] + " vs " + names[second]);
+        Player a = newPlayer(context, first);
+        Player b = newPlayer(context, second);
+        ArrayList<Player> players = new ArrayList<>();
+        players.add(swap ? b : a);
+        players.add(swap ? a : b);
+
+        BoardLayout layout = BoardLayout.generate(rows, columns, victims, maxDice, players.size(), gameSeed);
+        HeadlessGame game = new HeadlessGame(layout.instantiate(players), new DiceEngine(gameSeed));
+        game.setTurnLimit(turnLimit);
+        game.setContext(context);
+        Player winner = game.play();
+        return winner == null ? 0.5 : winner == a ? 1 : 0;
+    }
+
+    private Player newPlayer(GameContext context, int index) throws ClassNotFoundException {
+        Player player = context.newPlayer(names[index]);
+        Strategy strategy = loader.newStrategy(names[index]);
+        player.setStrategy(strategy);
+        strategy.setPlayer(player);
+        TimedStrategy.install(player, budgetMillis);
+        return player;
+    }
+
+    // Fits Bradley-Terry strengths to the decisive games by minorization-maximization,
+    // with one virtual draw per pairing, then converts them to centered Elo ratings and errors
+    private void fitRatings() {
+        int n = names.length;
+        double[] strength = new double[n];
+        Arrays.fill(strength, 1);
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            double change = 0;
+            for (int i = 0; i < n; i++) {
+                double wins = 0;
+                double denominator = 0;
+                for (int j = 0; j < n; j++) {
+                    if (j != i) {
+                        wins += points[i][j] + 0.5;
+                        denominator += (games[i][j] - draws[i][j] + 1) / (strength[i] + strength[j]);
+                    }
+                }
+                double updated = wins / denominator;
+                change = Math.max(change, Math.abs(Math.log(updated / strength[i])));
+                strength[i] = updated;
+            }
+            if (change < 1e-9) {
+                break;
+            }
+        }
+
+        double mean = 0;
+        for (int i = 0; i < n; i++) {
+            mean += Math.log(strength[i]) / n;
+        }
+        for (int i = 0; i < n; i++) {
+            ratings[i] = ELO * (Math.log(strength[i]) - mean);
+            double information = 0;
+            for (int j = 0; j < n; j++) {
+                if (j != i) {
+                    double p = strength[i] / (strength[i] + strength[j]);
+                    information += (games[i][j] - draws[i][j] + 1) * p * (1 - p);
+                }
+            }
+            errors[i] = ELO / Math.sqrt(information);
+        }
+    }
+
+    /**
+     * Method: main
+     * Purpose: Ranks strategies and reports the games used.
+     * Usage: java TournamentScheduler [--threads n] [--batch n] [--min n] [--max n]
+     *        [--z z] [--seed n] [--budget ms] [--compare] strategy...
+     * With --compare, a fixed schedule of --max games per pairing is also played and
+     * its ranking printed, to check that the adaptive ranking agrees with it.
+     */
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batch = 16;
+        int min = 16;
+        int max = 400;
+        double z = DEFAULT_Z;
+        long seed = 345;
+        boolean compare = false;
+        long budget = 0;
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--batch": batch = Integer.parseInt(args[++i]); break;
+                case "--min": min = Integer.parseInt(args[++i]); break;
+                case "--max": max = Integer.parseInt(args[++i]); break;
+                case "--z": z = Double.parseDouble(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--budget": budget = Long.parseLong(args[++i]); break;
+                case "--compare": compare = true; break;
+                default: names.add(args[i]);
+            }
+        }
+        if (names.size() < 2) {
+            names.clear();
+            names.add("ComputerStrategy");
+            names.add("FrontierStrategy");
+            names.add("MilquetoastStrategy");
+        }
+        int pairings = names.size() * (names.size() - 1) / 2;
+
+        try (TournamentScheduler adaptive = new TournamentScheduler(names, 8, 8, 8, 8, threads, seed)) {
+            adaptive.setZ(z);
+            adaptive.setBatchSize(batch);
+            adaptive.setMinGames(min);
+            adaptive.setMaxGames(max);
+            adaptive.setDecisionBudgetMillis(budget);
+            long start = System.nanoTime();
+            adaptive.run();
+            System.out.printf("Adaptive schedule (%.1f s):%n", (System.nanoTime() - start) / 1e9);
+            adaptive.printRatings(System.out);
+            System.out.printf("%.1f%% of the %d games of a fixed %d-game schedule%n",
+                    100.0 * adaptive.getGamesPlayed() / ((long) max * pairings), (long) max * pairings, max);
+            StrategyStats.report(System.out);
+        }
+        if (compare) {
+            try (TournamentScheduler fixed = new TournamentScheduler(names, 8, 8, 8, 8, threads, seed + 1)) {
+                fixed.setZ(z);
+                fixed.setDecisionBudgetMillis(budget);
+                StrategyStats.reset();
+                long start = System.nanoTime();
+                fixed.runFixed(max);
+                System.out.printf("Fixed schedule (%.1f s):%n", (System.nanoTime() - start) / 1e9);
+                fixed.printRatings(System.out);
+                StrategyStats.report(System.out);
+            }
+        }
+    }
+}
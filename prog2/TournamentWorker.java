@@ -0,0 +1,229 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class: TournamentWorker
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: One worker JVM of a sharded tournament. It connects to a
+ * TournamentCoordinator on localhost and plays each batch it is sent with
+ * HeadlessGame, reporting PROGRESS as each game finishes, then sends back the winner
+ * seat and turn count of every game, or FAILED if a game threw, after which it goes
+ * on to the next batch. Every
+ * game is rebuilt from its seed alone, with BoardLayout.generate and
+ * DiceEngine(seed), so any worker gives the same result unless a strategy makes
+ * random choices of its own. Each game has its own GameContext, so games may be
+ * played on several threads.
+ * Strategies are created with CachingStrategyLoader by default, or with the
+ * original StrategyLoader if --strategy-loader is given.
+ */
+public class TournamentWorker {
+    private final boolean plainLoader; // Use StrategyLoader instead of CachingStrategyLoader
+    private long budgetMillis; // Time allowed per strategy decision; 0 means unlimited
+    private final ExecutorService pool; // Threads playing games, or null for one thread
+
+    /**
+     * Constructor: Prepares a worker.
+     *
+     * @param threads The number of games to play at once (input).
+     * @param plainLoader True to load strategies with StrategyLoader (input).
+     */
+    public TournamentWorker(int threads, boolean plainLoader) {
+        this.plainLoader = plainLoader;
+        this.pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+    }
+
+    public void setDecisionBudgetMillis(long budgetMillis) { this.budgetMillis = budgetMillis; }
+
+    /**
+     * Method: work
+     * Purpose: Plays batches from the coordinator until it sends DONE or goes away.
+     *
+     * @param port The coordinator's port on localhost (input).
+     * @param crashAfter Batches after which to exit abruptly, to test recovery; 0 for never (input).
+     * @return The number of batches played.
+     */
+    public int work(int port, int crashAfter) throws IOException, InterruptedException {
+        int batches = 0;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeByte(TournamentCoordinator.HELLO);
+            out.writeUTF(ManagementFactory.getRuntimeMXBean().getName());
+            out.flush();
+
+            while (in.readByte() == TournamentCoordinator.BATCH) {
+                if (crashAfter > 0 && batches == crashAfter) {
+                    System.err.println("Worker crashing on purpose after " + batches + " batches");
+                    Runtime.getRuntime().halt(1);
+                }
+                playBatch(in, out);
+                batches++;
+            }
+        } catch (EOFException e) {
+            // The coordinator finished and closed the connection
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+        return batches;
+    }
+
+    // Reads one batch, plays it and writes its results
+    private void playBatch(DataInputStream in, DataOutputStream out) throws IOException, InterruptedException {
+        int id = in.readInt();
+        int rows = in.readInt();
+        int columns = in.readInt();
+        int victims = in.readInt();
+        int maxDice = in.readInt();
+        int turnLimit = in.readInt();
+        String[] strategies = new String[in.readInt()];
+        for (int s = 0; s < strategies.length; s++) {
+            strategies[s] = in.readUTF();
+        }
+        int count = in.readInt();
+        int[] gameIndex = new int[count];
+        long[] seeds = new long[count];
+        for (int i = 0; i < count; i++) {
+            gameIndex[i] = in.readInt();
+            seeds[i] = in.readLong();
+        }
+
+        int[][] results = new int[count][];
+        AtomicInteger done = new AtomicInteger();
+        List<Callable<int[]>> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int game = gameIndex[i];
+            long seed = seeds[i];
+            tasks.add(() -> {
+                int[] result = play(strategies, game, seed, rows, columns, victims, maxDice, turnLimit);
+                progress(out, id, done.incrementAndGet());
+                return result;
+            });
+        }
+        try {
+            if (pool == null) {
+                for (int i = 0; i < count; i++) {
+                    results[i] = tasks.get(i).call();
+                }
+            } else {
+                List<Future<int[]>> futures = pool.invokeAll(tasks);
+                for (int i = 0; i < count; i++) {
+                    results[i] = futures.get(i).get();
+                }
+            }
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            // Report the failure and carry on; the coordinator decides whether to retry
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            System.err.println("Game failed in batch " + id + ": " + cause);
+            out.writeByte(TournamentCoordinator.FAILED);
+            out.writeInt(id);
+            out.writeUTF(String.valueOf(cause));
+            out.flush();
+            return;
+        }
+
+        out.writeByte(TournamentCoordinator.RESULTS);
+        out.writeInt(id);
+        out.writeInt(count);
+        for (int[] result : results) {
+            out.writeByte(result[0]);
+            out.writeInt(result[1]);
+        }
+        out.flush();
+    }
+
+    // Tells the coordinator that a game has finished, so it knows this worker is alive.
+    // Games on the pool's threads share the stream
+    private static void progress(DataOutputStream out, int id, int done) throws IOException {
+        synchronized (out) {
+            out.writeByte(TournamentCoordinator.PROGRESS);
+            out.writeInt(id);
+            out.writeInt(done);
+            out.flush();
+        }
+    }
+
+    // Plays one game, seating the strategies by the coordinator's rotation.
+    // Returns {winner seat or -1, turns}
+    private int[] play(String[] strategies, int game, long seed, int rows, int columns, int victims, int maxDice,
+            int turnLimit) throws ReflectiveOperationException {
+        GameContext context = new GameContext("game " + game);
+        ArrayList<Player> players = new ArrayList<>();
+        for (int seat = 0; seat < strategies.length; seat++) {
+            String name = strategies[(seat + game) % strategies.length];
+            Player player = context.newPlayer(name + "#" + seat);
+            Strategy strategy = newStrategy(name);
+            player.setStrategy(strategy);
+            strategy.setPlayer(player);
+            TimedStrategy.install(player, budgetMillis);
+            players.add(player);
+        }
+        BoardLayout layout = BoardLayout.generate(rows, columns, victims, maxDice, players.size(), seed);
+        HeadlessGame headless = new HeadlessGame(layout.instantiate(players), new DiceEngine(seed));
+        headless.setTurnLimit(turnLimit);
+        headless.setContext(context);
+        headless.setGameId(game);
+        Player winner = headless.play();
+        return new int[] { winner == null ? -1 : context.getId(winner), headless.getTurn() };
+    }
+
+    private Strategy newStrategy(String name) throws ReflectiveOperationException {
+        if (plainLoader) {
+            Class<?> type = new StrategyLoader().loadClass(name);
+            return (Strategy) type.getDeclaredConstructor().newInstance();
+        }
+        return CachingStrategyLoader.shared().newStrategy(name);
+    }
+
+    /**
+     * Method: main
+     * Purpose: Runs a worker.
+     * Usage: java TournamentWorker [--port p] [--threads n] [--budget ms] [--strategy-loader]
+     *        [--crash-after n]
+     * Every strategy is wrapped in a TimedStrategy with the given decision budget, and
+     * the decision latencies of this worker are reported when it exits.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = TournamentCoordinator.DEFAULT_PORT;
+        int threads = 1;
+        boolean plainLoader = false;
+        int crashAfter = 0;
+        long budget = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--budget": budget = Long.parseLong(args[++i]); break;
+                case "--strategy-loader": plainLoader = true; break;
+                case "--crash-after": crashAfter = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        TournamentWorker worker = new TournamentWorker(threads, plainLoader);
+        worker.setDecisionBudgetMillis(budget);
+        int batches = worker.work(port, crashAfter);
+        System.err.println("Worker " + ManagementFactory.getRuntimeMXBean().getName() + " played " + batches
+                + " batches");
+        StrategyStats.report(System.err);
+    }
+}
@@ -0,0 +1,41 @@
+import java.util.Iterator;
+
+/**
+ * Interface: TurnPlanner
+ * Author: Ravshanbek Temurbekov
+ * Course: CSC345, PROGRAM#2
+ *
+ * Purpose: An optional extension of Strategy for strategies that plan a whole turn
+ * at once. Instead of asking willAttack, getAttacker and getDefender before every
+ * attack, an engine that knows about planners (HeadlessGame) asks for one plan per
+ * turn and takes attacks from it until it runs out, reporting the outcome of each
+ * one, so the strategy can update its candidates instead of rebuilding them. The
+ * plan may be computed up front or lazily as next() is called; either way, next()
+ * is only called after the previous attack has been resolved and reported.
+ *
+ * Engines that only know Strategy, such as Bones, still call willAttack; extend
+ * PlanningStrategy to get those methods for free.
+ */
+public interface TurnPlanner extends Strategy {
+    /**
+     * Method: planTurn
+     * Purpose: Starts the player's turn.
+     *
+     * @param board The current board (input).
+     * @return The attacks to make, in order. The turn ends when the iterator has no
+     *         more attacks, or when an attack is not legal.
+     */
+    public Iterator<Attack> planTurn(Map board);
+
+    /**
+     * Method: attackResolved
+     * Purpose: Tells the planner how an attack from its plan turned out. By then the
+     * board already shows the outcome: the attacker holds one die, and on a win the
+     * defender belongs to the player and holds the rest.
+     *
+     * @param attack The attack just made (input).
+     * @param won True if the defender was captured (input).
+     */
+    public default void attackResolved(Attack attack, boolean won) {
+    }
+}